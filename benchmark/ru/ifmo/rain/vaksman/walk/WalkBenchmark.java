@@ -0,0 +1,162 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+class WalkBenchmark {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURE_ITERATIONS = 5;
+    private static final int[] BUFFER_SIZES = {4 << 10, 64 << 10, 1 << 20};
+    private static final long[] MMAP_THRESHOLDS = {Long.MAX_VALUE, 1 << 20};
+
+    private static long blackhole;
+
+    public static void main(String[] args) throws IOException {
+        double scale = args.length > 0 ? Double.parseDouble(args[0]) : 1;
+        benchmarkHashes();
+        Path root = Files.createTempDirectory("walk-benchmark");
+        try {
+            Random random = new Random(3141592653L);
+            Map<String, Path> trees = new LinkedHashMap<>();
+            trees.put("tiny-flat", generate(root.resolve("tiny-flat"), random, (int) (20_000 * scale), 0, 0, () -> 1 << 10));
+            trees.put("tiny-deep", generate(root.resolve("tiny-deep"), random, (int) (20_000 * scale), 6, 3, () -> 1 << 10));
+            trees.put("mixed-deep", generate(root.resolve("mixed-deep"), random, (int) (2_000 * scale), 4, 4,
+                    () -> (long) Math.min(64 << 20, -Math.log(1 - random.nextDouble()) * (256 << 10))));
+            trees.put("huge-flat", generate(root.resolve("huge-flat"), random, 4, 0, 0, () -> (long) (128 * scale) << 20));
+            int[] threads = Arrays.stream(new int[]{1, Runtime.getRuntime().availableProcessors()}).distinct().toArray();
+            for (Map.Entry<String, Path> tree : trees.entrySet()) {
+                long bytes = size(tree.getValue());
+                for (int bufferSize : BUFFER_SIZES) {
+                    for (long mmapThreshold : MMAP_THRESHOLDS) {
+                        for (int t : threads) {
+                            String name = String.format("walk %-10s buffer=%-7d mmap=%-3s threads=%d",
+                                    tree.getKey(), bufferSize, mmapThreshold == Long.MAX_VALUE ? "off" : "1M", t);
+                            measure(name, bytes, () -> walk(tree.getValue(), bufferSize, mmapThreshold, t));
+                        }
+                    }
+                }
+            }
+        } finally {
+            delete(root);
+        }
+    }
+
+    private static void benchmarkHashes() throws IOException {
+        byte[] data = new byte[8 << 20];
+        new Random(2718281828L).nextBytes(data);
+        ByteBuffer heap = ByteBuffer.wrap(data);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data);
+        direct.flip();
+        for (HashAlgorithm algorithm : HashAlgorithm.values()) {
+            for (ByteBuffer buf : Arrays.asList(heap, direct)) {
+                String name = String.format("hash %-8s %s", algorithm.name().toLowerCase(Locale.ROOT), buf.isDirect() ? "direct" : "heap");
+                measure(name, data.length, () -> {
+                    Hasher hasher = algorithm.newHasher();
+                    hasher.accept(buf);
+                    blackhole += hasher.digest()[0];
+                });
+            }
+        }
+    }
+
+    private static void walk(Path root, int bufferSize, long mmapThreshold, int threads) throws IOException {
+        FileHasher hasher = new FileHasher(
+                ReadStrategy.adaptive(new BufferPool(bufferSize), mmapThreshold),
+                HashAlgorithm.FNV,
+                null,
+                null,
+                WalkMetrics.DISABLED);
+        FileVisitor visitor = new FileVisitor((hash, file) -> blackhole += hash[0], hasher);
+        if (threads > 1) {
+            try (ParallelWalk parallelWalk = new ParallelWalk(threads, hasher)) {
+                parallelWalk.walk(RootSource.of(Collections.singletonList(root.toString())), visitor);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Benchmark was interrupted", e);
+            }
+        } else {
+            visitor.walk(root.toString());
+        }
+    }
+
+    private static void measure(String name, long bytes, Operation operation) throws IOException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+        double[] millis = new double[MEASURE_ITERATIONS];
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        double mean = Arrays.stream(millis).average().orElse(0);
+        double deviation = Math.sqrt(Arrays.stream(millis).map(m -> (m - mean) * (m - mean)).sum() / (MEASURE_ITERATIONS - 1));
+        System.out.println(String.format(Locale.ROOT, "%-60s %10.2f +- %8.2f ms/op %10.1f MiB/s",
+                name, mean, deviation, bytes / 1048576.0 / (mean / 1000)));
+    }
+
+    private static Path generate(Path dir, Random random, int files, int depth, int fanout, SizeSupplier sizes) throws IOException {
+        List<Path> dirs = new ArrayList<>();
+        collectDirs(dir, depth, fanout, dirs);
+        for (Path d : dirs) {
+            Files.createDirectories(d);
+        }
+        byte[] buf = new byte[1 << 20];
+        random.nextBytes(buf);
+        for (int i = 0; i < files; i++) {
+            Path file = dirs.get(random.nextInt(dirs.size())).resolve("file" + i);
+            try (java.io.OutputStream out = Files.newOutputStream(file)) {
+                for (long left = sizes.next(); left > 0; left -= buf.length) {
+                    out.write(buf, 0, (int) Math.min(left, buf.length));
+                }
+            }
+        }
+        return dir;
+    }
+
+    private static void collectDirs(Path dir, int depth, int fanout, List<Path> dirs) {
+        dirs.add(dir);
+        for (int i = 0; depth > 0 && i < fanout; i++) {
+            collectDirs(dir.resolve("dir" + i), depth - 1, fanout, dirs);
+        }
+    }
+
+    private static long size(Path root) throws IOException {
+        long[] size = {0};
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                size[0] += attrs.size();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size[0];
+    }
+
+    private static void delete(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private interface Operation {
+        void run() throws IOException;
+    }
+
+    private interface SizeSupplier {
+        long next();
+    }
+}
@@ -0,0 +1,232 @@
+package ru.ifmo.rain.vaksman.arrayset;
+
+import java.util.*;
+
+abstract class AbstractArraySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+    final int from;
+    final int to;
+    final boolean descending;
+
+    AbstractArraySet(int from, int to, boolean descending) {
+        this.from = from;
+        this.to = to;
+        this.descending = descending;
+    }
+
+    abstract E element(int i);
+
+    abstract int search(Object o);
+
+    abstract Comparator<? super E> ascendingComparator();
+
+    abstract AbstractArraySet<E> view(int from, int to, boolean descending);
+
+    E get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        return element(absolute(index));
+    }
+
+    int absolute(int index) {
+        return descending ? to - 1 - index : from + index;
+    }
+
+    private int relative(int i) {
+        if (i < from || i >= to) {
+            return -1;
+        }
+        return descending ? to - 1 - i : i - from;
+    }
+
+    int floorPosition(int found) {
+        return relative(descending ? ceil(found) : floor(found));
+    }
+
+    int ceilingPosition(int found) {
+        return relative(descending ? floor(found) : ceil(found));
+    }
+
+    int lowerPosition(int found) {
+        return relative(descending ? higher(found) : lower(found));
+    }
+
+    int higherPosition(int found) {
+        return relative(descending ? lower(found) : higher(found));
+    }
+
+    private static int floor(int found) {
+        return found >= 0 ? found : -found - 2;
+    }
+
+    private static int ceil(int found) {
+        return found >= 0 ? found : -found - 1;
+    }
+
+    private static int lower(int found) {
+        return found >= 0 ? found - 1 : -found - 2;
+    }
+
+    private static int higher(int found) {
+        return found >= 0 ? found + 1 : -found - 1;
+    }
+
+    private E checkedGet(int index) {
+        return index >= 0 ? element(absolute(index)) : null;
+    }
+
+    AbstractArraySet<E> range(int l, int r) {
+        if (l < 0 || r < 0 || l > r) {
+            return view(from, from, descending);
+        }
+        return descending ? view(to - 1 - r, to - l, true) : view(from + l, from + r + 1, false);
+    }
+
+    public int rank(E e) {
+        int index = ceilingPosition(search(e));
+        return index >= 0 ? index : size();
+    }
+
+    public E select(int index) {
+        return get(index);
+    }
+
+    public int countBetween(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        int fromFound = search(fromElement);
+        int toFound = search(toElement);
+        int l = fromInclusive ? ceilingPosition(fromFound) : higherPosition(fromFound);
+        int r = toInclusive ? floorPosition(toFound) : lowerPosition(toFound);
+        return l < 0 || r < 0 ? 0 : Math.max(0, r - l + 1);
+    }
+
+    public int countBetween(E fromElement, E toElement) {
+        return countBetween(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return search(o) >= 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return element(absolute(index++));
+            }
+        };
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public NavigableSet<E> descendingSet() {
+        return view(from, to, !descending);
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return descending ? Collections.reverseOrder(ascendingComparator()) : ascendingComparator();
+    }
+
+    @Override
+    public E first() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return get(0);
+    }
+
+    @Override
+    public E last() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return get(size() - 1);
+    }
+
+    @Override
+    public E floor(E e) {
+        return checkedGet(floorPosition(search(e)));
+    }
+
+    @Override
+    public E ceiling(E e) {
+        return checkedGet(ceilingPosition(search(e)));
+    }
+
+    @Override
+    public E lower(E e) {
+        return checkedGet(lowerPosition(search(e)));
+    }
+
+    @Override
+    public E higher(E e) {
+        return checkedGet(higherPosition(search(e)));
+    }
+
+    @Override
+    public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        int fromFound = search(fromElement);
+        int toFound = search(toElement);
+        return range(
+                fromInclusive ? ceilingPosition(fromFound) : higherPosition(fromFound),
+                toInclusive ? floorPosition(toFound) : lowerPosition(toFound));
+    }
+
+    @Override
+    public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+        int found = search(toElement);
+        return range(0, inclusive ? floorPosition(found) : lowerPosition(found));
+    }
+
+    @Override
+    public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+        int found = search(fromElement);
+        return range(inclusive ? ceilingPosition(found) : higherPosition(found), size() - 1);
+    }
+
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<E> headSet(E toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<E> tailSet(E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public E pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E pollLast() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,243 @@
+package ru.ifmo.rain.vaksman.arrayset;
+
+import java.util.*;
+
+public class ArrayMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+    private final ArraySet<K> keys;
+    private final Object[] values;
+
+    public ArrayMap() {
+        this(new ArraySet<>(), new Object[0]);
+    }
+
+    public ArrayMap(Map<? extends K, ? extends V> map) {
+        this(map, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ArrayMap(Map<? extends K, ? extends V> map, Comparator<? super K> comparator) {
+        List<Map.Entry<? extends K, ? extends V>> entries = new ArrayList<>(map.entrySet());
+        if (!(map instanceof SortedMap && Objects.equals(((SortedMap<?, ?>) map).comparator(), comparator))) {
+            entries.sort((a, b) -> comparator != null
+                    ? comparator.compare(a.getKey(), b.getKey())
+                    : ((Comparable<? super K>) a.getKey()).compareTo(b.getKey()));
+        }
+        Object[] k = new Object[entries.size()];
+        Object[] v = new Object[entries.size()];
+        int size = 0;
+        for (Map.Entry<? extends K, ? extends V> e : entries) {
+            if (size > 0 && (comparator != null ? comparator.compare((K) k[size - 1], e.getKey()) == 0 : k[size - 1].equals(e.getKey()))) {
+                v[size - 1] = e.getValue();
+            } else {
+                k[size] = e.getKey();
+                v[size++] = e.getValue();
+            }
+        }
+        keys = new ArraySet<>(Arrays.copyOf(k, size), comparator);
+        values = size == v.length ? v : Arrays.copyOf(v, size);
+    }
+
+    private ArrayMap(ArraySet<K> keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    private ArrayMap<K, V> with(NavigableSet<K> keys) {
+        return new ArrayMap<>((ArraySet<K>) keys, values);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int index) {
+        return (V) values[keys.absolute(index)];
+    }
+
+    private Map.Entry<K, V> entry(int index) {
+        return index >= 0 ? new SimpleImmutableEntry<>(keys.get(index), value(index)) : null;
+    }
+
+    private K key(int index) {
+        return index >= 0 ? keys.get(index) : null;
+    }
+
+    @Override
+    public int size() {
+        return keys.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return keys.contains(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        int found = keys.search(key);
+        return found >= 0 ? (V) values[found] : null;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new Iterator<Map.Entry<K, V>>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < size();
+                    }
+
+                    @Override
+                    public Map.Entry<K, V> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return entry(index++);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry)) {
+                    return false;
+                }
+                Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                int found = keys.search(e.getKey());
+                return found >= 0 && Objects.equals(values[found], e.getValue());
+            }
+
+            @Override
+            public int size() {
+                return ArrayMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public NavigableSet<K> keySet() {
+        return keys;
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return keys;
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return keys.descendingSet();
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return keys.comparator();
+    }
+
+    @Override
+    public K firstKey() {
+        return keys.first();
+    }
+
+    @Override
+    public K lastKey() {
+        return keys.last();
+    }
+
+    @Override
+    public Map.Entry<K, V> firstEntry() {
+        return isEmpty() ? null : entry(0);
+    }
+
+    @Override
+    public Map.Entry<K, V> lastEntry() {
+        return isEmpty() ? null : entry(size() - 1);
+    }
+
+    @Override
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return entry(keys.lowerPosition(keys.search(key)));
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return key(keys.lowerPosition(keys.search(key)));
+    }
+
+    @Override
+    public Map.Entry<K, V> floorEntry(K key) {
+        return entry(keys.floorPosition(keys.search(key)));
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return key(keys.floorPosition(keys.search(key)));
+    }
+
+    @Override
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return entry(keys.ceilingPosition(keys.search(key)));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return key(keys.ceilingPosition(keys.search(key)));
+    }
+
+    @Override
+    public Map.Entry<K, V> higherEntry(K key) {
+        return entry(keys.higherPosition(keys.search(key)));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return key(keys.higherPosition(keys.search(key)));
+    }
+
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return with(keys.descendingSet());
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return with(keys.subSet(fromKey, fromInclusive, toKey, toInclusive));
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        return with(keys.headSet(toKey, inclusive));
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        return with(keys.tailSet(fromKey, inclusive));
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+}
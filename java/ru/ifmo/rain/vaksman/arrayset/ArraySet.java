@@ -2,13 +2,16 @@ package ru.ifmo.rain.vaksman.arrayset;
 
 import java.util.*;
 
-public class ArraySet<E> extends AbstractSet<E> implements NavigableSet<E>{
-    private final List<E> array;
+public class ArraySet<E> extends AbstractArraySet<E> {
+    private static final Object[] EMPTY = new Object[0];
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
+
+    private final Object[] array;
     private final Comparator<? super E> comparator;
+    private final EytzingerIndex<E> index;
 
     public ArraySet() {
-        array = Collections.emptyList();
-        comparator = null;
+        this(EMPTY, null);
     }
 
     public ArraySet(Collection<? extends E> c) {
@@ -16,202 +19,289 @@ public class ArraySet<E> extends AbstractSet<E> implements NavigableSet<E>{
     }
 
     public ArraySet(Collection<? extends E> c, Comparator<? super E> comparator) {
-        if (c.isEmpty()) {
-            array = Collections.emptyList();
-        } else {
-            List<E> t = new ArrayList<>(c);
-            t.sort(comparator);
-            array = new ArrayList<>();
-            E prev = t.get(0);
-            array.add(prev);
-            for (int i = 1; i < t.size(); i++) {
-                E next = t.get(i);
-                if (comparator != null ? comparator.compare(prev, next) != 0 : !next.equals(prev)) {
-                    array.add(next);
-                }
-                prev = next;
-            }
-        }
-        this.comparator = comparator;
+        this(c, comparator, SearchLayout.BINARY);
     }
 
-    private ArraySet(List<E> list, Comparator<? super E> comparator) {
-        array = list;
-        this.comparator = comparator;
+    public ArraySet(Collection<? extends E> c, Comparator<? super E> comparator, SearchLayout layout) {
+        this(sortedDistinct(c, comparator), comparator, layout);
     }
 
-    private ArraySet(Comparator<? super E> c) {
-        array = Collections.emptyList();
-        comparator = c;
-    }
-
-    @Override
-    public Iterator<E> iterator() {
-        return Collections.unmodifiableList(array).iterator();
-    }
-
-    @Override
-    public Iterator<E> descendingIterator() {
-        return descendingSet().iterator();
+    private ArraySet(Object[] array, Comparator<? super E> comparator, SearchLayout layout) {
+        this(array, comparator, layout == SearchLayout.EYTZINGER && array.length > 0 ? new EytzingerIndex<>(array, comparator) : null,
+                0, array.length, false);
     }
 
-    @Override
-    public NavigableSet<E> descendingSet() {
-        return new ArraySet<>(new DescendingList<>(array), Collections.reverseOrder(comparator));
+    ArraySet(Object[] array, Comparator<? super E> comparator) {
+        this(array, comparator, null, 0, array.length, false);
     }
 
-    @Override
-    public int size() {
-        return array.size();
+    private ArraySet(Object[] array, Comparator<? super E> comparator, EytzingerIndex<E> index, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.array = array;
+        this.comparator = comparator;
+        this.index = index;
     }
 
-    @Override
-    public E first() {
-        if (isEmpty()) {
-            throw new NoSuchElementException();
+    @SuppressWarnings("unchecked")
+    private static <E> Object[] sortedDistinct(Collection<? extends E> c, Comparator<? super E> comparator) {
+        if (c.isEmpty()) {
+            return EMPTY;
         }
-        return array.get(0);
-    }
-
-    @Override
-    public E last() {
-        if (isEmpty()) {
-            throw new NoSuchElementException();
+        if (c instanceof ArraySet) {
+            ArraySet<?> other = (ArraySet<?>) c;
+            if (!other.descending && Objects.equals(other.comparator, comparator)) {
+                if (other.from == 0 && other.to == other.array.length) {
+                    return other.array;
+                }
+                return Arrays.copyOfRange(other.array, other.from, other.to);
+            }
         }
-
-        return array.get(array.size() - 1);
-    }
-
-    @Override
-    public Comparator<? super E> comparator() {
-        return comparator;
+        E[] t = (E[]) c.toArray();
+        if (c instanceof SortedSet && Objects.equals(((SortedSet<?>) c).comparator(), comparator)) {
+            return t;
+        }
+        if (!isSorted(t, comparator)) {
+            if (t.length >= PARALLEL_SORT_THRESHOLD) {
+                Arrays.parallelSort(t, comparator);
+            } else {
+                Arrays.sort(t, comparator);
+            }
+        }
+        int size = 1;
+        for (int i = 1; i < t.length; i++) {
+            E prev = t[size - 1];
+            E next = t[i];
+            if (comparator != null ? comparator.compare(prev, next) != 0 : !next.equals(prev)) {
+                t[size++] = next;
+            }
+        }
+        return size == t.length ? t : Arrays.copyOf(t, size);
     }
 
     @SuppressWarnings("unchecked")
-    @Override
-    public boolean contains(Object o) {
-        return Collections.binarySearch(array, (E)o, comparator) >= 0;
-    }
-
-    private int anyIdx(E e, int inOffset, int notInOffset) {
-        int idx = Collections.binarySearch(array, e, comparator);
-        if (idx >= 0) {
-            return idx + inOffset;
+    private static <E> boolean isSorted(E[] t, Comparator<? super E> comparator) {
+        for (int i = 1; i < t.length; i++) {
+            if (comparator != null ? comparator.compare(t[i - 1], t[i]) > 0 : ((Comparable<? super E>) t[i - 1]).compareTo(t[i]) > 0) {
+                return false;
+            }
         }
-        return -(idx + 1) + notInOffset;
-    }
-
-    private int floorIdx(E e) {
-        return anyIdx(e, 0, -1);
-    }
-
-    private int ceilIdx(E e) {
-        return anyIdx(e, 0, 0);
-    }
-
-    private int lowerIdx(E e) {
-        return anyIdx(e, -1, -1);
-    }
-
-    private int higherIdx(E e) {
-        return anyIdx(e, 1, 0);
-    }
-
-    private E checkedGet(int idx) {
-        return (idx >= 0 && idx < size() ? array.get(idx) : null);
-    }
-
-    @Override
-    public E floor(E e) {
-        return checkedGet(floorIdx(e));
+        return true;
     }
 
-    @Override
-    public E ceiling(E e) {
-        return checkedGet(ceilIdx(e));
+    @SuppressWarnings("unchecked")
+    private static <E> int compare(Comparator<? super E> comparator, E a, E b) {
+        return comparator != null ? comparator.compare(a, b) : ((Comparable<? super E>) a).compareTo(b);
     }
 
-    @Override
-    public E lower(E e) {
-        return checkedGet(lowerIdx(e));
+    private E at(int i) {
+        return element(absolute(i));
     }
 
-    @Override
-    public E higher(E e) {
-        return checkedGet(higherIdx(e));
+    private int gallop(int from, E key, Comparator<? super E> comparator) {
+        int size = size();
+        int l = from;
+        int r = from;
+        for (int step = 1; r < size && compare(comparator, at(r), key) < 0; step <<= 1) {
+            l = r + 1;
+            r += step;
+        }
+        r = Math.min(r, size);
+        while (l < r) {
+            int mid = (l + r) >>> 1;
+            if (compare(comparator, at(mid), key) < 0) {
+                l = mid + 1;
+            } else {
+                r = mid;
+            }
+        }
+        return l;
     }
 
-    @Override
-    public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
-        int l = (fromInclusive ? ceilIdx(fromElement) : higherIdx(fromElement));
-        int r = (toInclusive ? floorIdx(toElement) : lowerIdx(toElement));
-        if (l > r || l == -1 || r == -1)
-            return new ArraySet<>(comparator);
-        return new ArraySet<>(array.subList(l, r + 1), comparator);
+    @SuppressWarnings("unchecked")
+    private ArraySet<E> sameOrder(Collection<? extends E> c, Comparator<? super E> comparator) {
+        if (c instanceof ArraySet && Objects.equals(((ArraySet<?>) c).comparator(), comparator)) {
+            return (ArraySet<E>) c;
+        }
+        return new ArraySet<>(c, comparator);
+    }
+
+    private ArraySet<E> result(Object[] result, int size, Comparator<? super E> comparator) {
+        return new ArraySet<>(size == result.length ? result : Arrays.copyOf(result, size), comparator);
+    }
+
+    public ArraySet<E> union(Collection<? extends E> c) {
+        Comparator<? super E> comparator = comparator();
+        ArraySet<E> other = sameOrder(c, comparator);
+        int n = size();
+        int m = other.size();
+        Object[] result = new Object[n + m];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < n && j < m) {
+            int cmp = compare(comparator, at(i), other.at(j));
+            result[k++] = cmp <= 0 ? at(i) : other.at(j);
+            if (cmp <= 0) {
+                i++;
+            }
+            if (cmp >= 0) {
+                j++;
+            }
+        }
+        while (i < n) {
+            result[k++] = at(i++);
+        }
+        while (j < m) {
+            result[k++] = other.at(j++);
+        }
+        return result(result, k, comparator);
+    }
+
+    public ArraySet<E> intersection(Collection<? extends E> c) {
+        Comparator<? super E> comparator = comparator();
+        ArraySet<E> other = sameOrder(c, comparator);
+        ArraySet<E> small = size() <= other.size() ? this : other;
+        ArraySet<E> large = small == this ? other : this;
+        Object[] result = new Object[small.size()];
+        int k = 0;
+        for (int i = 0, j = 0; i < small.size() && j < large.size(); i++) {
+            E e = small.at(i);
+            j = large.gallop(j, e, comparator);
+            if (j < large.size() && compare(comparator, large.at(j), e) == 0) {
+                result[k++] = e;
+            }
+        }
+        return result(result, k, comparator);
+    }
+
+    public ArraySet<E> difference(Collection<? extends E> c) {
+        Comparator<? super E> comparator = comparator();
+        ArraySet<E> other = sameOrder(c, comparator);
+        Object[] result = new Object[size()];
+        int k = 0;
+        for (int i = 0, j = 0; i < size(); i++) {
+            E e = at(i);
+            j = other.gallop(j, e, comparator);
+            if (j == other.size() || compare(comparator, other.at(j), e) != 0) {
+                result[k++] = e;
+            }
+        }
+        return result(result, k, comparator);
+    }
+
+    public ArraySet<E> symmetricDifference(Collection<? extends E> c) {
+        Comparator<? super E> comparator = comparator();
+        ArraySet<E> other = sameOrder(c, comparator);
+        int n = size();
+        int m = other.size();
+        Object[] result = new Object[n + m];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < n && j < m) {
+            int cmp = compare(comparator, at(i), other.at(j));
+            if (cmp < 0) {
+                result[k++] = at(i++);
+            } else if (cmp > 0) {
+                result[k++] = other.at(j++);
+            } else {
+                i++;
+                j++;
+            }
+        }
+        while (i < n) {
+            result[k++] = at(i++);
+        }
+        while (j < m) {
+            result[k++] = other.at(j++);
+        }
+        return result(result, k, comparator);
     }
 
+    @SuppressWarnings("unchecked")
     @Override
-    public NavigableSet<E> headSet(E toElement, boolean inclusive) {
-        if (isEmpty())
-            return this;
-        return subSet(first(), true, toElement, inclusive);
+    public boolean containsAll(Collection<?> c) {
+        Comparator<? super E> comparator = comparator();
+        if (!(c instanceof ArraySet) || !Objects.equals(((ArraySet<?>) c).comparator(), comparator)) {
+            return super.containsAll(c);
+        }
+        ArraySet<E> other = (ArraySet<E>) c;
+        for (int i = 0, j = 0; i < other.size(); i++) {
+            E e = other.at(i);
+            j = gallop(j, e, comparator);
+            if (j == size() || compare(comparator, at(j), e) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] ceilings(List<? extends E> probes) {
+        Comparator<? super E> comparator = comparator();
+        int[] result = new int[probes.size()];
+        int j = 0;
+        E prev = null;
+        for (int i = 0; i < result.length; i++) {
+            E e = probes.get(i);
+            if (i > 0 && compare(comparator, e, prev) < 0) {
+                j = 0;
+            }
+            j = gallop(j, e, comparator);
+            result[i] = j;
+            prev = e;
+        }
+        return result;
     }
 
-    @Override
-    public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
-        if (isEmpty())
-            return this;
-        return subSet(fromElement, inclusive, last(), true);
+    public BitSet containsEach(List<? extends E> probes) {
+        Comparator<? super E> comparator = comparator();
+        int[] ceilings = ceilings(probes);
+        BitSet result = new BitSet(ceilings.length);
+        for (int i = 0; i < ceilings.length; i++) {
+            if (ceilings[i] < size() && compare(comparator, at(ceilings[i]), probes.get(i)) == 0) {
+                result.set(i);
+            }
+        }
+        return result;
     }
 
-    @Override
-    public SortedSet<E> subSet(E fromElement, E toElement) {
-        return subSet(fromElement, true, toElement, false);
+    public int[] ceilingAll(List<? extends E> probes) {
+        int[] result = ceilings(probes);
+        for (int i = 0; i < result.length; i++) {
+            if (result[i] == size()) {
+                result[i] = -1;
+            }
+        }
+        return result;
     }
 
+    @SuppressWarnings("unchecked")
     @Override
-    public SortedSet<E> headSet(E toElement) {
-        return headSet(toElement, false);
+    E element(int i) {
+        return (E) array[i];
     }
 
+    @SuppressWarnings("unchecked")
     @Override
-    public SortedSet<E> tailSet(E fromElement) {
-        return tailSet(fromElement, true);
+    int search(Object o) {
+        if (index == null) {
+            return Arrays.binarySearch((E[]) array, from, to, (E) o, comparator);
+        }
+        int found = index.search((E) o);
+        int point = found >= 0 ? found : -found - 1;
+        if (found >= 0 && point >= from && point < to) {
+            return found;
+        }
+        return -Math.max(from, Math.min(to, point)) - 1;
     }
 
     @Override
-    public E pollFirst() {
-        throw new UnsupportedOperationException();
+    Comparator<? super E> ascendingComparator() {
+        return comparator;
     }
 
     @Override
-    public E pollLast() {
-        throw new UnsupportedOperationException();
-    }
-
-    private class DescendingList<T> extends AbstractList<T> {
-        private List<T> array;
-        private boolean reverse;
-
-        private DescendingList(List<T> list) {
-            if (list instanceof DescendingList) {
-                DescendingList<T> descendingList = (DescendingList<T>) list;
-                array = descendingList.array;
-                reverse = !descendingList.reverse;
-            } else {
-                array = list;
-                reverse = true;
-            }
-        }
-
-        @Override
-        public T get(int index) {
-            return array.get(reverse ? size() - index - 1 : index);
-        }
-
-        @Override
-        public int size() {
-            return array.size();
-        }
+    ArraySet<E> view(int from, int to, boolean descending) {
+        return new ArraySet<>(array, comparator, index, from, to, descending);
     }
 }
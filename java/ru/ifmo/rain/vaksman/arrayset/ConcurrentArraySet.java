@@ -0,0 +1,146 @@
+package ru.ifmo.rain.vaksman.arrayset;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConcurrentArraySet<E> implements AutoCloseable {
+    private final Comparator<? super E> comparator;
+    private final Queue<Mutation<E>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private final ScheduledExecutorService rebuilder;
+    private volatile ArraySet<E> snapshot;
+
+    public ConcurrentArraySet(Collection<? extends E> c, Comparator<? super E> comparator, long period, TimeUnit unit) {
+        this.comparator = comparator;
+        snapshot = new ArraySet<>(c, comparator);
+        rebuilder = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "array-set-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuilder.scheduleWithFixedDelay(this::rebuild, period, period, unit);
+    }
+
+    public ArraySet<E> snapshot() {
+        report();
+        return snapshot;
+    }
+
+    public boolean contains(Object o) {
+        return snapshot.contains(o);
+    }
+
+    public void add(E e) {
+        pending.add(new Mutation<>(check(e), true));
+    }
+
+    public void remove(E e) {
+        pending.add(new Mutation<>(check(e), false));
+    }
+
+    @SuppressWarnings("unchecked")
+    private E check(E e) {
+        if (comparator != null) {
+            comparator.compare(e, e);
+        } else {
+            ((Comparable<? super E>) Objects.requireNonNull(e)).compareTo(e);
+        }
+        return e;
+    }
+
+    public void flush() {
+        rebuild();
+        report();
+    }
+
+    private void report() {
+        RuntimeException e = failure.getAndSet(null);
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    private synchronized void rebuild() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Mutation<E>> batch = new ArrayList<>(pending);
+        snapshot = apply(snapshot, batch);
+        for (int i = 0; i < batch.size(); i++) {
+            pending.remove();
+        }
+    }
+
+    private ArraySet<E> apply(ArraySet<E> set, List<Mutation<E>> batch) {
+        try {
+            return merge(set, batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                RuntimeException first = failure.getAndUpdate(f -> f == null ? e : f);
+                if (first != null) {
+                    first.addSuppressed(e);
+                }
+                return set;
+            }
+            int mid = batch.size() / 2;
+            return apply(apply(set, batch.subList(0, mid)), batch.subList(mid, batch.size()));
+        }
+    }
+
+    private ArraySet<E> merge(ArraySet<E> set, List<Mutation<E>> batch) {
+        List<Mutation<E>> sorted = new ArrayList<>(batch);
+        sorted.sort((a, b) -> compare(a.element, b.element));
+        Object[] adds = new Object[sorted.size()];
+        Object[] removes = new Object[sorted.size()];
+        int addCount = 0;
+        int removeCount = 0;
+        for (int i = 0, j; i < sorted.size(); i = j) {
+            E element = sorted.get(i).element;
+            Mutation<E> added = null;
+            boolean removed = false;
+            for (j = i; j < sorted.size() && compare(element, sorted.get(j).element) == 0; j++) {
+                Mutation<E> m = sorted.get(j);
+                if (!m.add) {
+                    added = null;
+                    removed = true;
+                } else if (added == null) {
+                    added = m;
+                }
+            }
+            if (removed) {
+                removes[removeCount++] = element;
+            }
+            if (added != null) {
+                adds[addCount++] = added.element;
+            }
+        }
+        if (removeCount > 0) {
+            set = set.difference(new ArraySet<>(Arrays.copyOf(removes, removeCount), comparator));
+        }
+        return addCount == 0 ? set : set.union(new ArraySet<>(Arrays.copyOf(adds, addCount), comparator));
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        return comparator != null ? comparator.compare(a, b) : ((Comparable<? super E>) a).compareTo(b);
+    }
+
+    @Override
+    public void close() {
+        rebuilder.shutdownNow();
+    }
+
+    private static class Mutation<E> {
+        private final E element;
+        private final boolean add;
+
+        private Mutation(E element, boolean add) {
+            this.element = element;
+            this.add = add;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.ifmo.rain.vaksman.arrayset;
+
+import java.util.Comparator;
+
+class EytzingerIndex<E> {
+    private final Object[] keys;
+    private final int[] ranks;
+    private final Comparator<? super E> comparator;
+
+    EytzingerIndex(Object[] sorted, Comparator<? super E> comparator) {
+        int n = sorted.length;
+        keys = new Object[n + 1];
+        ranks = new int[n + 1];
+        this.comparator = comparator;
+        fill(sorted, 0, 1);
+        ranks[0] = n;
+    }
+
+    private int fill(Object[] sorted, int i, int k) {
+        if (k < keys.length) {
+            i = fill(sorted, i, 2 * k);
+            keys[k] = sorted[i];
+            ranks[k] = i++;
+            i = fill(sorted, i, 2 * k + 1);
+        }
+        return i;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object a, E b) {
+        return comparator != null ? comparator.compare((E) a, b) : ((Comparable<? super E>) a).compareTo(b);
+    }
+
+    int search(E e) {
+        int n = keys.length;
+        int k = 1;
+        while (k < n) {
+            k = 2 * k + (compare(keys[k], e) < 0 ? 1 : 0);
+        }
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        if (k != 0 && compare(keys[k], e) == 0) {
+            return ranks[k];
+        }
+        return -ranks[k] - 1;
+    }
+}
@@ -0,0 +1,231 @@
+package ru.ifmo.rain.vaksman.arrayset;
+
+import java.util.*;
+
+public class FrontCodedStringSet extends AbstractArraySet<String> {
+    private static final int BLOCK = 16;
+
+    private final byte[] data;
+    private final int[] blocks;
+    private final int count;
+
+    public FrontCodedStringSet(Collection<String> c) {
+        this(encode(new ArraySet<>(c)));
+    }
+
+    private FrontCodedStringSet(FrontCodedStringSet other) {
+        this(other.data, other.blocks, other.count, 0, other.count, false);
+    }
+
+    private FrontCodedStringSet(byte[] data, int[] blocks, int count, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.data = data;
+        this.blocks = blocks;
+        this.count = count;
+    }
+
+    private static FrontCodedStringSet encode(ArraySet<String> sorted) {
+        int[] blocks = new int[(sorted.size() + BLOCK - 1) / BLOCK];
+        byte[] data = new byte[64];
+        int size = 0;
+        byte[] prev = new byte[0];
+        int i = 0;
+        for (String s : sorted) {
+            byte[] bytes = toBytes(s);
+            int shared = 0;
+            if (i % BLOCK == 0) {
+                blocks[i / BLOCK] = size;
+            } else {
+                int max = Math.min(prev.length, bytes.length);
+                while (shared < max && prev[shared] == bytes[shared]) {
+                    shared++;
+                }
+            }
+            int suffix = bytes.length - shared;
+            if (data.length - size < suffix + 10) {
+                data = Arrays.copyOf(data, Math.max(2 * data.length, size + suffix + 10));
+            }
+            size = writeVarInt(data, size, shared);
+            size = writeVarInt(data, size, suffix);
+            System.arraycopy(bytes, shared, data, size, suffix);
+            size += suffix;
+            prev = bytes;
+            i++;
+        }
+        return new FrontCodedStringSet(Arrays.copyOf(data, size), blocks, i, 0, i, false);
+    }
+
+    private static byte[] toBytes(String s) {
+        byte[] bytes = new byte[3 * s.length()];
+        int size = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes[size++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[size++] = (byte) (0xc0 | c >> 6);
+                bytes[size++] = (byte) (0x80 | c & 0x3f);
+            } else {
+                bytes[size++] = (byte) (0xe0 | c >> 12);
+                bytes[size++] = (byte) (0x80 | c >> 6 & 0x3f);
+                bytes[size++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        return Arrays.copyOf(bytes, size);
+    }
+
+    private static String fromBytes(byte[] bytes, int length) {
+        char[] chars = new char[length];
+        int size = 0;
+        for (int i = 0; i < length; ) {
+            int b = bytes[i++] & 0xff;
+            if (b < 0x80) {
+                chars[size++] = (char) b;
+            } else if (b < 0xe0) {
+                chars[size++] = (char) ((b & 0x1f) << 6 | bytes[i++] & 0x3f);
+            } else {
+                chars[size++] = (char) ((b & 0x0f) << 12 | (bytes[i++] & 0x3f) << 6 | bytes[i++] & 0x3f);
+            }
+        }
+        return new String(chars, 0, size);
+    }
+
+    private static int writeVarInt(byte[] data, int pos, int value) {
+        while ((value & ~0x7f) != 0) {
+            data[pos++] = (byte) (value & 0x7f | 0x80);
+            value >>>= 7;
+        }
+        data[pos++] = (byte) value;
+        return pos;
+    }
+
+    private class Decoder {
+        private int pos;
+        private byte[] current = new byte[32];
+        private int length;
+
+        private Decoder(int block) {
+            pos = blocks[block];
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[pos++];
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        private void next() {
+            int shared = readVarInt();
+            int suffix = readVarInt();
+            length = shared + suffix;
+            if (current.length < length) {
+                current = Arrays.copyOf(current, Math.max(2 * current.length, length));
+            }
+            System.arraycopy(data, pos, current, shared, suffix);
+            pos += suffix;
+        }
+
+        private String string() {
+            return fromBytes(current, length);
+        }
+    }
+
+    private String head(int block) {
+        Decoder decoder = new Decoder(block);
+        decoder.next();
+        return decoder.string();
+    }
+
+    @Override
+    String element(int i) {
+        Decoder decoder = new Decoder(i / BLOCK);
+        for (int k = i - i % BLOCK; k <= i; k++) {
+            decoder.next();
+        }
+        return decoder.string();
+    }
+
+    @Override
+    int search(Object o) {
+        String key = (String) o;
+        int l = 0;
+        int r = blocks.length - 1;
+        while (l <= r) {
+            int mid = (l + r) >>> 1;
+            if (head(mid).compareTo(key) <= 0) {
+                l = mid + 1;
+            } else {
+                r = mid - 1;
+            }
+        }
+        int found = -1;
+        if (r >= 0) {
+            Decoder decoder = new Decoder(r);
+            int end = Math.min(count, (r + 1) * BLOCK);
+            int i = r * BLOCK;
+            for (; i < end; i++) {
+                decoder.next();
+                int cmp = decoder.string().compareTo(key);
+                if (cmp >= 0) {
+                    found = cmp == 0 ? i : -i - 1;
+                    break;
+                }
+            }
+            if (i == end) {
+                found = -end - 1;
+            }
+        }
+        int point = found >= 0 ? found : -found - 1;
+        if (found >= 0 && point >= from && point < to) {
+            return found;
+        }
+        return -Math.max(from, Math.min(to, point)) - 1;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        if (descending) {
+            return super.iterator();
+        }
+        return new Iterator<String>() {
+            private int index = from;
+            private Decoder decoder;
+
+            @Override
+            public boolean hasNext() {
+                return index < to;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (decoder == null || index % BLOCK == 0) {
+                    decoder = new Decoder(index / BLOCK);
+                    for (int k = index - index % BLOCK; k < index; k++) {
+                        decoder.next();
+                    }
+                }
+                decoder.next();
+                index++;
+                return decoder.string();
+            }
+        };
+    }
+
+    @Override
+    Comparator<? super String> ascendingComparator() {
+        return null;
+    }
+
+    @Override
+    FrontCodedStringSet view(int from, int to, boolean descending) {
+        return new FrontCodedStringSet(data, blocks, count, from, to, descending);
+    }
+}
@@ -0,0 +1,97 @@
+package ru.ifmo.rain.vaksman.arrayset;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+public class IntArraySet extends AbstractArraySet<Integer> {
+    private final int[] array;
+
+    public IntArraySet(int... values) {
+        this(distinct(values), 0);
+    }
+
+    public IntArraySet(Collection<Integer> c) {
+        this(distinct(c.stream().mapToInt(Integer::intValue).toArray()), 0);
+    }
+
+    private IntArraySet(int[] array, int from) {
+        this(array, from, array.length, false);
+    }
+
+    private IntArraySet(int[] array, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.array = array;
+    }
+
+    private static int[] distinct(int[] values) {
+        int[] t = values.clone();
+        Arrays.sort(t);
+        int size = 0;
+        for (int i = 0; i < t.length; i++) {
+            if (i == 0 || t[i] != t[size - 1]) {
+                t[size++] = t[i];
+            }
+        }
+        return size == t.length ? t : Arrays.copyOf(t, size);
+    }
+
+    private int search(int e) {
+        return Arrays.binarySearch(array, from, to, e);
+    }
+
+    public boolean contains(int e) {
+        return search(e) >= 0;
+    }
+
+    public int getInt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        return array[absolute(index)];
+    }
+
+    public int floorIndex(int e) {
+        return floorPosition(search(e));
+    }
+
+    public int ceilingIndex(int e) {
+        return ceilingPosition(search(e));
+    }
+
+    public int lowerIndex(int e) {
+        return lowerPosition(search(e));
+    }
+
+    public int higherIndex(int e) {
+        return higherPosition(search(e));
+    }
+
+    public int[] toIntArray() {
+        int[] res = new int[size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = array[absolute(i)];
+        }
+        return res;
+    }
+
+    @Override
+    Integer element(int i) {
+        return array[i];
+    }
+
+    @Override
+    int search(Object o) {
+        return search(((Integer) o).intValue());
+    }
+
+    @Override
+    Comparator<? super Integer> ascendingComparator() {
+        return null;
+    }
+
+    @Override
+    IntArraySet view(int from, int to, boolean descending) {
+        return new IntArraySet(array, from, to, descending);
+    }
+}
@@ -0,0 +1,97 @@
+package ru.ifmo.rain.vaksman.arrayset;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+public class LongArraySet extends AbstractArraySet<Long> {
+    private final long[] array;
+
+    public LongArraySet(long... values) {
+        this(distinct(values), 0);
+    }
+
+    public LongArraySet(Collection<Long> c) {
+        this(distinct(c.stream().mapToLong(Long::longValue).toArray()), 0);
+    }
+
+    private LongArraySet(long[] array, int from) {
+        this(array, from, array.length, false);
+    }
+
+    private LongArraySet(long[] array, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.array = array;
+    }
+
+    private static long[] distinct(long[] values) {
+        long[] t = values.clone();
+        Arrays.sort(t);
+        int size = 0;
+        for (int i = 0; i < t.length; i++) {
+            if (i == 0 || t[i] != t[size - 1]) {
+                t[size++] = t[i];
+            }
+        }
+        return size == t.length ? t : Arrays.copyOf(t, size);
+    }
+
+    private int search(long e) {
+        return Arrays.binarySearch(array, from, to, e);
+    }
+
+    public boolean contains(long e) {
+        return search(e) >= 0;
+    }
+
+    public long getLong(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        return array[absolute(index)];
+    }
+
+    public int floorIndex(long e) {
+        return floorPosition(search(e));
+    }
+
+    public int ceilingIndex(long e) {
+        return ceilingPosition(search(e));
+    }
+
+    public int lowerIndex(long e) {
+        return lowerPosition(search(e));
+    }
+
+    public int higherIndex(long e) {
+        return higherPosition(search(e));
+    }
+
+    public long[] toLongArray() {
+        long[] res = new long[size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = array[absolute(i)];
+        }
+        return res;
+    }
+
+    @Override
+    Long element(int i) {
+        return array[i];
+    }
+
+    @Override
+    int search(Object o) {
+        return search(((Long) o).longValue());
+    }
+
+    @Override
+    Comparator<? super Long> ascendingComparator() {
+        return null;
+    }
+
+    @Override
+    LongArraySet view(int from, int to, boolean descending) {
+        return new LongArraySet(array, from, to, descending);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.ifmo.rain.vaksman.arrayset;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+
+class LongCodec implements RecordCodec<Long> {
+    @Override
+    public int width() {
+        return Long.BYTES;
+    }
+
+    @Override
+    public Long read(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset);
+    }
+
+    @Override
+    public void write(ByteBuffer buffer, int offset, Long e) {
+        buffer.putLong(offset, e);
+    }
+
+    @Override
+    public Comparator<? super Long> comparator() {
+        return null;
+    }
+
+    @Override
+    public int compare(ByteBuffer buffer, int offset, Long e) {
+        return Long.compare(buffer.getLong(offset), e);
+    }
+}
@@ -0,0 +1,112 @@
+package ru.ifmo.rain.vaksman.arrayset;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Comparator;
+
+public class MappedArraySet<E> extends AbstractArraySet<E> {
+    private static final int MAGIC = 0x41534554;
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    private static final int SEGMENT = 1 << 30;
+
+    private final ByteBuffer[] segments;
+    private final int perSegment;
+    private final RecordCodec<E> codec;
+
+    private MappedArraySet(ByteBuffer[] segments, int perSegment, RecordCodec<E> codec, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.segments = segments;
+        this.perSegment = perSegment;
+        this.codec = codec;
+    }
+
+    public static <E> MappedArraySet<E> open(Path file, RecordCodec<E> codec) throws IOException {
+        int width;
+        int size;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported format of the set file " + file);
+            }
+            width = in.readInt();
+            size = in.readInt();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (width != codec.width() || size < 0 || channel.size() < HEADER + (long) size * width) {
+                throw new IOException("Set file " + file + " does not match the codec or is truncated");
+            }
+            int perSegment = SEGMENT / width;
+            ByteBuffer[] segments = new ByteBuffer[(int) (((long) size + perSegment - 1) / perSegment)];
+            for (int s = 0; s < segments.length; s++) {
+                long first = (long) s * perSegment;
+                long count = Math.min(perSegment, size - first);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + first * width, count * width);
+            }
+            return new MappedArraySet<>(segments, perSegment, codec, 0, size, false);
+        }
+    }
+
+    public static <E> void write(Path file, Collection<? extends E> elements, RecordCodec<E> codec) throws IOException {
+        ArraySet<E> sorted = new ArraySet<>(elements, codec.comparator());
+        Path parent = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(codec.width());
+                out.writeInt(sorted.size());
+                ByteBuffer record = ByteBuffer.allocate(codec.width());
+                for (E e : sorted) {
+                    codec.write(record, 0, e);
+                    out.write(record.array());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    E element(int i) {
+        return codec.read(segments[i / perSegment], (i % perSegment) * codec.width());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    int search(Object o) {
+        E e = (E) o;
+        int width = codec.width();
+        int l = from;
+        int r = to - 1;
+        while (l <= r) {
+            int mid = (l + r) >>> 1;
+            int cmp = codec.compare(segments[mid / perSegment], (mid % perSegment) * width, e);
+            if (cmp < 0) {
+                l = mid + 1;
+            } else if (cmp > 0) {
+                r = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -l - 1;
+    }
+
+    @Override
+    Comparator<? super E> ascendingComparator() {
+        return codec.comparator();
+    }
+
+    @Override
+    MappedArraySet<E> view(int from, int to, boolean descending) {
+        return new MappedArraySet<>(segments, perSegment, codec, from, to, descending);
+    }
+}
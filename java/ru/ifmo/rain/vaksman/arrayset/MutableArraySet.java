@@ -0,0 +1,666 @@
+package ru.ifmo.rain.vaksman.arrayset;
+
+import java.util.*;
+
+public class MutableArraySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+    private static final int MIN_BUFFER = 64;
+    private static final int BUFFER_FACTOR = 8;
+
+    private final Comparator<? super E> comparator;
+    private E[] base;
+    private int head;
+    private int tail;
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private boolean shared;
+    private E[] buffer;
+    private int bufferStart;
+    private int bufferSize;
+
+    public MutableArraySet() {
+        this(Collections.<E>emptyList(), null);
+    }
+
+    public MutableArraySet(Comparator<? super E> comparator) {
+        this(Collections.<E>emptyList(), comparator);
+    }
+
+    public MutableArraySet(Collection<? extends E> c) {
+        this(c, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public MutableArraySet(Collection<? extends E> c, Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        base = (E[]) new ArraySet<E>(c, comparator).toArray();
+        tail = base.length;
+        buffer = (E[]) new Object[MIN_BUFFER];
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        return comparator != null ? comparator.compare(a, b) : ((Comparable<? super E>) a).compareTo(b);
+    }
+
+    private int searchBase(E e) {
+        return Arrays.binarySearch(base, head, tail, e, comparator);
+    }
+
+    private int searchBuffer(E e) {
+        int j = Arrays.binarySearch(buffer, bufferStart, bufferStart + bufferSize, e, comparator);
+        return j >= 0 ? j - bufferStart : j + bufferStart;
+    }
+
+    private E buffered(int j) {
+        return buffer[bufferStart + j];
+    }
+
+    private boolean isLive(int i) {
+        return i >= head && i < tail && !deleted.get(i);
+    }
+
+    private void trimHead() {
+        int h = Math.min(deleted.nextClearBit(head), tail);
+        deletedCount -= h - head;
+        release(head, h);
+        head = h;
+    }
+
+    private void trimTail() {
+        int t = Math.max(deleted.previousClearBit(tail - 1) + 1, head);
+        deletedCount -= tail - t;
+        release(t, tail);
+        tail = t;
+    }
+
+    private void release(int from, int to) {
+        if (!shared) {
+            Arrays.fill(base, from, to, null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void compact() {
+        if (bufferSize == 0 && deletedCount == 0 && head == 0 && tail == base.length) {
+            return;
+        }
+        E[] merged = (E[]) new Object[size()];
+        int i = head;
+        int j = 0;
+        int k = 0;
+        while (k < merged.length) {
+            i = deleted.nextClearBit(i);
+            if (j == bufferSize || (i < tail && compare(base[i], buffered(j)) < 0)) {
+                merged[k++] = base[i++];
+            } else {
+                merged[k++] = buffered(j++);
+            }
+        }
+        base = merged;
+        shared = false;
+        head = 0;
+        tail = merged.length;
+        deleted.clear();
+        deletedCount = 0;
+        clearBuffer();
+    }
+
+    private void clearBuffer() {
+        Arrays.fill(buffer, bufferStart, bufferStart + bufferSize, null);
+        bufferStart = 0;
+        bufferSize = 0;
+    }
+
+    public ArraySet<E> snapshot() {
+        compact();
+        shared = true;
+        return new ArraySet<>(base, comparator);
+    }
+
+    @Override
+    public int size() {
+        return tail - head - deletedCount + bufferSize;
+    }
+
+    @Override
+    public void clear() {
+        base = Arrays.copyOf(base, 0);
+        shared = false;
+        head = tail = 0;
+        deleted.clear();
+        deletedCount = 0;
+        clearBuffer();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean contains(Object o) {
+        E e = (E) o;
+        return isLive(searchBase(e)) || searchBuffer(e) >= 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int i = searchBase(e);
+        if (i >= 0) {
+            if (!deleted.get(i)) {
+                return false;
+            }
+            deleted.clear(i);
+            deletedCount--;
+            return true;
+        }
+        int j = searchBuffer(e);
+        if (j >= 0) {
+            return false;
+        }
+        j = -j - 1;
+        if (j < bufferSize / 2 && bufferStart > 0) {
+            System.arraycopy(buffer, bufferStart, buffer, bufferStart - 1, j);
+            bufferStart--;
+        } else {
+            if (bufferStart + bufferSize == buffer.length) {
+                moveBuffer();
+            }
+            System.arraycopy(buffer, bufferStart + j, buffer, bufferStart + j + 1, bufferSize - j);
+        }
+        buffer[bufferStart + j] = e;
+        bufferSize++;
+        if (bufferSize >= Math.max(MIN_BUFFER, BUFFER_FACTOR * (int) Math.sqrt(tail - head))) {
+            compact();
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object o) {
+        E e = (E) o;
+        int j = searchBuffer(e);
+        if (j >= 0) {
+            removeBuffered(j);
+            return true;
+        }
+        int i = searchBase(e);
+        if (!isLive(i)) {
+            return false;
+        }
+        deleted.set(i);
+        deletedCount++;
+        if (i == head) {
+            trimHead();
+        }
+        if (i == tail - 1) {
+            trimTail();
+        }
+        if (deletedCount > MIN_BUFFER && 2 * deletedCount > tail - head) {
+            compact();
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void moveBuffer() {
+        E[] moved = 2 * bufferSize > buffer.length ? (E[]) new Object[2 * buffer.length] : buffer;
+        System.arraycopy(buffer, bufferStart, moved, 0, bufferSize);
+        if (moved == buffer) {
+            Arrays.fill(buffer, bufferSize, bufferStart + bufferSize, null);
+        }
+        buffer = moved;
+        bufferStart = 0;
+    }
+
+    private E removeBuffered(int j) {
+        E e = buffered(j);
+        if (j < bufferSize / 2) {
+            System.arraycopy(buffer, bufferStart, buffer, bufferStart + 1, j);
+            buffer[bufferStart++] = null;
+        } else {
+            System.arraycopy(buffer, bufferStart + j + 1, buffer, bufferStart + j, bufferSize - j - 1);
+            buffer[bufferStart + bufferSize - 1] = null;
+        }
+        if (--bufferSize == 0) {
+            bufferStart = 0;
+        }
+        return e;
+    }
+
+    private boolean firstInBuffer() {
+        return head == tail || (bufferSize > 0 && compare(buffered(0), base[head]) < 0);
+    }
+
+    private boolean lastInBuffer() {
+        return head == tail || (bufferSize > 0 && compare(buffered(bufferSize - 1), base[tail - 1]) > 0);
+    }
+
+    @Override
+    public E first() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return firstInBuffer() ? buffered(0) : base[head];
+    }
+
+    @Override
+    public E last() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return lastInBuffer() ? buffered(bufferSize - 1) : base[tail - 1];
+    }
+
+    @Override
+    public E pollFirst() {
+        if (isEmpty()) {
+            return null;
+        }
+        if (firstInBuffer()) {
+            return removeBuffered(0);
+        }
+        E e = base[head];
+        release(head, head + 1);
+        head++;
+        trimHead();
+        return e;
+    }
+
+    @Override
+    public E pollLast() {
+        if (isEmpty()) {
+            return null;
+        }
+        if (lastInBuffer()) {
+            return removeBuffered(bufferSize - 1);
+        }
+        E e = base[--tail];
+        release(tail, tail + 1);
+        trimTail();
+        return e;
+    }
+
+    private E below(E e, boolean inclusive) {
+        int i = searchBase(e);
+        i = i >= 0 ? (inclusive ? i : i - 1) : -i - 2;
+        if (i >= head) {
+            i = deleted.previousClearBit(i);
+        }
+        int j = searchBuffer(e);
+        j = j >= 0 ? (inclusive ? j : j - 1) : -j - 2;
+        E fromBase = i >= head ? base[i] : null;
+        E fromBuffer = j >= 0 ? buffered(j) : null;
+        if (fromBase == null || fromBuffer == null) {
+            return fromBase != null ? fromBase : fromBuffer;
+        }
+        return compare(fromBase, fromBuffer) > 0 ? fromBase : fromBuffer;
+    }
+
+    private E above(E e, boolean inclusive) {
+        int i = searchBase(e);
+        i = i >= 0 ? (inclusive ? i : i + 1) : -i - 1;
+        if (i < tail) {
+            i = deleted.nextClearBit(i);
+        }
+        int j = searchBuffer(e);
+        j = j >= 0 ? (inclusive ? j : j + 1) : -j - 1;
+        E fromBase = i < tail ? base[i] : null;
+        E fromBuffer = j < bufferSize ? buffered(j) : null;
+        if (fromBase == null || fromBuffer == null) {
+            return fromBase != null ? fromBase : fromBuffer;
+        }
+        return compare(fromBase, fromBuffer) < 0 ? fromBase : fromBuffer;
+    }
+
+    @Override
+    public E floor(E e) {
+        return below(e, true);
+    }
+
+    @Override
+    public E lower(E e) {
+        return below(e, false);
+    }
+
+    @Override
+    public E ceiling(E e) {
+        return above(e, true);
+    }
+
+    @Override
+    public E higher(E e) {
+        return above(e, false);
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<E> it = snapshot().iterator();
+        return new Iterator<E>() {
+            private E last;
+            private boolean removable;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                last = it.next();
+                removable = true;
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (!removable) {
+                    throw new IllegalStateException();
+                }
+                MutableArraySet.this.remove(last);
+                removable = false;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public NavigableSet<E> descendingSet() {
+        return new RangeView(true, null, false, true, null, false, true);
+    }
+
+    @Override
+    public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        return new RangeView(false, fromElement, fromInclusive, false, toElement, toInclusive, false);
+    }
+
+    @Override
+    public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+        return new RangeView(true, null, false, false, toElement, inclusive, false);
+    }
+
+    @Override
+    public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+        return new RangeView(false, fromElement, inclusive, true, null, false, false);
+    }
+
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<E> headSet(E toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<E> tailSet(E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    private class RangeView extends AbstractSet<E> implements NavigableSet<E> {
+        private final boolean fromStart;
+        private final E lo;
+        private final boolean loInclusive;
+        private final boolean toEnd;
+        private final E hi;
+        private final boolean hiInclusive;
+        private final boolean descending;
+
+        private RangeView(boolean fromStart, E lo, boolean loInclusive, boolean toEnd, E hi, boolean hiInclusive, boolean descending) {
+            if (!fromStart && !toEnd && compare(lo, hi) > 0) {
+                throw new IllegalArgumentException("fromKey > toKey");
+            }
+            this.fromStart = fromStart;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.toEnd = toEnd;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+        }
+
+        private boolean tooLow(E e) {
+            if (fromStart) {
+                return false;
+            }
+            int cmp = compare(e, lo);
+            return cmp < 0 || cmp == 0 && !loInclusive;
+        }
+
+        private boolean tooHigh(E e) {
+            if (toEnd) {
+                return false;
+            }
+            int cmp = compare(e, hi);
+            return cmp > 0 || cmp == 0 && !hiInclusive;
+        }
+
+        private boolean inRange(E e) {
+            return !tooLow(e) && !tooHigh(e);
+        }
+
+        private boolean inBounds(E e) {
+            return (fromStart || compare(e, lo) >= 0) && (toEnd || compare(e, hi) <= 0);
+        }
+
+        private E lowest() {
+            E e = fromStart ? (MutableArraySet.this.isEmpty() ? null : MutableArraySet.this.first())
+                    : above(lo, loInclusive);
+            return e == null || tooHigh(e) ? null : e;
+        }
+
+        private E highest() {
+            E e = toEnd ? (MutableArraySet.this.isEmpty() ? null : MutableArraySet.this.last())
+                    : below(hi, hiInclusive);
+            return e == null || tooLow(e) ? null : e;
+        }
+
+        private E absAbove(E e, boolean inclusive) {
+            if (tooLow(e)) {
+                return lowest();
+            }
+            E res = above(e, inclusive);
+            return res == null || tooHigh(res) ? null : res;
+        }
+
+        private E absBelow(E e, boolean inclusive) {
+            if (tooHigh(e)) {
+                return highest();
+            }
+            E res = below(e, inclusive);
+            return res == null || tooLow(res) ? null : res;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean contains(Object o) {
+            return inRange((E) o) && MutableArraySet.this.contains(o);
+        }
+
+        @Override
+        public boolean add(E e) {
+            if (!inRange(e)) {
+                throw new IllegalArgumentException("key out of range");
+            }
+            return MutableArraySet.this.add(e);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean remove(Object o) {
+            return inRange((E) o) && MutableArraySet.this.remove(o);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return lowest() == null;
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (Iterator<E> it = iterator(); it.hasNext(); it.next()) {
+                size++;
+            }
+            return size;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private E next = descending ? highest() : lowest();
+                private E last;
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public E next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    last = next;
+                    next = descending ? absBelow(last, false) : absAbove(last, false);
+                    return last;
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException();
+                    }
+                    MutableArraySet.this.remove(last);
+                    last = null;
+                }
+            };
+        }
+
+        @Override
+        public Iterator<E> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        @Override
+        public NavigableSet<E> descendingSet() {
+            return new RangeView(fromStart, lo, loInclusive, toEnd, hi, hiInclusive, !descending);
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return descending ? Collections.reverseOrder(comparator) : comparator;
+        }
+
+        @Override
+        public E first() {
+            E e = descending ? highest() : lowest();
+            if (e == null) {
+                throw new NoSuchElementException();
+            }
+            return e;
+        }
+
+        @Override
+        public E last() {
+            E e = descending ? lowest() : highest();
+            if (e == null) {
+                throw new NoSuchElementException();
+            }
+            return e;
+        }
+
+        @Override
+        public E floor(E e) {
+            return descending ? absAbove(e, true) : absBelow(e, true);
+        }
+
+        @Override
+        public E lower(E e) {
+            return descending ? absAbove(e, false) : absBelow(e, false);
+        }
+
+        @Override
+        public E ceiling(E e) {
+            return descending ? absBelow(e, true) : absAbove(e, true);
+        }
+
+        @Override
+        public E higher(E e) {
+            return descending ? absBelow(e, false) : absAbove(e, false);
+        }
+
+        @Override
+        public E pollFirst() {
+            E e = descending ? highest() : lowest();
+            if (e != null) {
+                MutableArraySet.this.remove(e);
+            }
+            return e;
+        }
+
+        @Override
+        public E pollLast() {
+            E e = descending ? lowest() : highest();
+            if (e != null) {
+                MutableArraySet.this.remove(e);
+            }
+            return e;
+        }
+
+        private NavigableSet<E> range(boolean fromStart, E lo, boolean loInclusive, boolean toEnd, E hi, boolean hiInclusive) {
+            if (!fromStart && !(loInclusive ? inRange(lo) : inBounds(lo))
+                    || !toEnd && !(hiInclusive ? inRange(hi) : inBounds(hi))) {
+                throw new IllegalArgumentException("key out of range");
+            }
+            return new RangeView(
+                    fromStart && this.fromStart, fromStart ? this.lo : lo, fromStart ? this.loInclusive : loInclusive,
+                    toEnd && this.toEnd, toEnd ? this.hi : hi, toEnd ? this.hiInclusive : hiInclusive,
+                    descending);
+        }
+
+        @Override
+        public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+            return descending
+                    ? range(false, toElement, toInclusive, false, fromElement, fromInclusive)
+                    : range(false, fromElement, fromInclusive, false, toElement, toInclusive);
+        }
+
+        @Override
+        public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+            return descending
+                    ? range(false, toElement, inclusive, true, null, false)
+                    : range(true, null, false, false, toElement, inclusive);
+        }
+
+        @Override
+        public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+            return descending
+                    ? range(true, null, false, false, fromElement, inclusive)
+                    : range(false, fromElement, inclusive, true, null, false);
+        }
+
+        @Override
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> headSet(E toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> tailSet(E fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.ifmo.rain.vaksman.arrayset;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+
+public interface RecordCodec<E> {
+    RecordCodec<Long> LONG = new LongCodec();
+
+    int width();
+
+    E read(ByteBuffer buffer, int offset);
+
+    void write(ByteBuffer buffer, int offset, E e);
+
+    Comparator<? super E> comparator();
+
+    @SuppressWarnings("unchecked")
+    default int compare(ByteBuffer buffer, int offset, E e) {
+        Comparator<? super E> comparator = comparator();
+        E value = read(buffer, offset);
+        return comparator != null ? comparator.compare(value, e) : ((Comparable<? super E>) value).compareTo(e);
+    }
+}
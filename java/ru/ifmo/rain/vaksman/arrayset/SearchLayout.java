@@ -0,0 +1,6 @@
+package ru.ifmo.rain.vaksman.arrayset;
+
+public enum SearchLayout {
+    BINARY,
+    EYTZINGER
+}
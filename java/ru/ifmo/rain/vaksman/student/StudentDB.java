@@ -12,6 +12,19 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class StudentDB implements StudentGroupQuery {
+    private final StudentIndex index;
+
+    public StudentDB() {
+        this(null);
+    }
+
+    public StudentDB(StudentIndex index) {
+        this.index = index;
+    }
+
+    private boolean indexed(Collection<Student> students) {
+        return index != null && students == index.getStudents();
+    }
 
     private List<String> getPropertiesList(List<Student> students, Function<Student, String> getter) {
         return students.stream()
@@ -41,6 +54,9 @@ public class StudentDB implements StudentGroupQuery {
 
     @Override
     public Set<String> getDistinctFirstNames(List<Student> students) {
+        if (indexed(students)) {
+            return index.getDistinctFirstNames();
+        }
         return students.stream()
                 .map(Student::getFirstName)
                 .collect(Collectors.toCollection(TreeSet::new));
@@ -49,6 +65,9 @@ public class StudentDB implements StudentGroupQuery {
 
     @Override
     public String getMinStudentFirstName(List<Student> students) {
+        if (indexed(students)) {
+            return index.getMinStudentFirstName();
+        }
         return students.stream()
                 .min(Comparator.naturalOrder())
                 .map(Student::getFirstName)
@@ -57,6 +76,9 @@ public class StudentDB implements StudentGroupQuery {
 
     @Override
     public List<Student> sortStudentsById(Collection<Student> students) {
+        if (indexed(students)) {
+            return index.sortStudentsById();
+        }
         return students.stream()
                 .sorted()
                 .collect(Collectors.toList());
@@ -65,40 +87,51 @@ public class StudentDB implements StudentGroupQuery {
     private List<Student> filteringSortByName(Collection<Student> students, Predicate<Student> predicate) {
         return students.stream()
                 .filter(predicate)
-                .sorted(
-                    Comparator.comparing(Student::getLastName)
-                        .thenComparing(Student::getFirstName)
-                        .thenComparing(Comparator.naturalOrder())
-                )
+                .sorted(StudentIndex.BY_NAME)
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<Student> sortStudentsByName(Collection<Student> students) {
+        if (indexed(students)) {
+            return index.sortStudentsByName();
+        }
         return filteringSortByName(students,
                 s -> true);
     }
 
     @Override
     public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
+        if (indexed(students)) {
+            return index.findStudentsByFirstName(name);
+        }
         return filteringSortByName(students,
                 s -> s.getFirstName().equals(name));
     }
 
     @Override
     public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
+        if (indexed(students)) {
+            return index.findStudentsByLastName(name);
+        }
         return filteringSortByName(students,
                 s -> s.getLastName().equals(name));
     }
 
     @Override
     public List<Student> findStudentsByGroup(Collection<Student> students, String group) {
+        if (indexed(students)) {
+            return index.findStudentsByGroup(group);
+        }
         return filteringSortByName(students,
                 s -> s.getGroup().equals(group));
     }
 
     @Override
     public Map<String, String> findStudentNamesByGroup(Collection<Student> students, String group) {
+        if (indexed(students)) {
+            return index.findStudentNamesByGroup(group);
+        }
         return students.stream()
                 .filter(s -> s.getGroup().equals(group))
                 .collect(Collectors.toMap(
@@ -133,11 +166,17 @@ public class StudentDB implements StudentGroupQuery {
 
     @Override
     public List<Group> getGroupsByName(Collection<Student> students) {
+        if (indexed(students)) {
+            return index.getGroupsByName();
+        }
         return getSortedGroupList(students, this::sortStudentsByName);
     }
 
     @Override
     public List<Group> getGroupsById(Collection<Student> students) {
+        if (indexed(students)) {
+            return index.getGroupsById();
+        }
         return getSortedGroupList(students,
                 this::sortStudentsById
         );
@@ -145,11 +184,17 @@ public class StudentDB implements StudentGroupQuery {
 
     @Override
     public String getLargestGroup(Collection<Student> students) {
+        if (indexed(students)) {
+            return index.getLargestGroup();
+        }
         return getMaxGroup(students, List::size);
     }
 
     @Override
     public String getLargestGroupFirstName(Collection<Student> students) {
+        if (indexed(students)) {
+            return index.getLargestGroupFirstName();
+        }
         return getMaxGroup(students, s -> getDistinctFirstNames(s).size());
     }
 }
@@ -0,0 +1,118 @@
+package ru.ifmo.rain.vaksman.student;
+
+import info.kgeorgiy.java.advanced.student.Group;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+
+public class StudentIndex {
+    static final Comparator<Student> BY_NAME = Comparator.comparing(Student::getLastName)
+            .thenComparing(Student::getFirstName)
+            .thenComparing(Comparator.naturalOrder());
+
+    private final List<Student> students;
+    private final List<Student> byId;
+    private final List<Student> byName;
+    private final Map<String, List<Student>> byFirstName = new HashMap<>();
+    private final Map<String, List<Student>> byLastName = new HashMap<>();
+    private final Map<String, List<Student>> byGroup = new HashMap<>();
+    private final Map<String, Map<String, String>> namesByGroup = new HashMap<>();
+    private final NavigableSet<String> firstNames = new TreeSet<>();
+    private final List<Group> groupsByName = new ArrayList<>();
+    private final List<Group> groupsById = new ArrayList<>();
+    private final String largestGroup;
+    private final String largestGroupFirstName;
+
+    public StudentIndex(Collection<Student> students) {
+        this.students = Collections.unmodifiableList(new ArrayList<>(students));
+        byId = new ArrayList<>(students);
+        byId.sort(Comparator.naturalOrder());
+        byName = new ArrayList<>(students);
+        byName.sort(BY_NAME);
+
+        for (Student s : byName) {
+            byFirstName.computeIfAbsent(s.getFirstName(), k -> new ArrayList<>()).add(s);
+            byLastName.computeIfAbsent(s.getLastName(), k -> new ArrayList<>()).add(s);
+            byGroup.computeIfAbsent(s.getGroup(), k -> new ArrayList<>()).add(s);
+            namesByGroup.computeIfAbsent(s.getGroup(), k -> new HashMap<>()).putIfAbsent(s.getLastName(), s.getFirstName());
+            firstNames.add(s.getFirstName());
+        }
+        Map<String, List<Student>> groupById = new HashMap<>();
+        for (Student s : byId) {
+            groupById.computeIfAbsent(s.getGroup(), k -> new ArrayList<>()).add(s);
+        }
+
+        String largest = "";
+        String largestFirstName = "";
+        int max = 0;
+        int maxFirstNames = 0;
+        for (String group : new TreeSet<>(byGroup.keySet())) {
+            List<Student> members = byGroup.get(group);
+            groupsByName.add(new Group(group, members));
+            groupsById.add(new Group(group, groupById.get(group)));
+            if (members.size() > max) {
+                max = members.size();
+                largest = group;
+            }
+            int distinct = (int) members.stream().map(Student::getFirstName).distinct().count();
+            if (distinct > maxFirstNames) {
+                maxFirstNames = distinct;
+                largestFirstName = group;
+            }
+        }
+        largestGroup = largest;
+        largestGroupFirstName = largestFirstName;
+    }
+
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    public Set<String> getDistinctFirstNames() {
+        return new TreeSet<>(firstNames);
+    }
+
+    public String getMinStudentFirstName() {
+        return byId.isEmpty() ? "" : byId.get(0).getFirstName();
+    }
+
+    public List<Student> sortStudentsById() {
+        return new ArrayList<>(byId);
+    }
+
+    public List<Student> sortStudentsByName() {
+        return new ArrayList<>(byName);
+    }
+
+    public List<Student> findStudentsByFirstName(String name) {
+        return new ArrayList<>(byFirstName.getOrDefault(name, Collections.emptyList()));
+    }
+
+    public List<Student> findStudentsByLastName(String name) {
+        return new ArrayList<>(byLastName.getOrDefault(name, Collections.emptyList()));
+    }
+
+    public List<Student> findStudentsByGroup(String group) {
+        return new ArrayList<>(byGroup.getOrDefault(group, Collections.emptyList()));
+    }
+
+    public Map<String, String> findStudentNamesByGroup(String group) {
+        return new HashMap<>(namesByGroup.getOrDefault(group, Collections.emptyMap()));
+    }
+
+    public List<Group> getGroupsByName() {
+        return new ArrayList<>(groupsByName);
+    }
+
+    public List<Group> getGroupsById() {
+        return new ArrayList<>(groupsById);
+    }
+
+    public String getLargestGroup() {
+        return largestGroup;
+    }
+
+    public String getLargestGroupFirstName() {
+        return largestGroupFirstName;
+    }
+}
@@ -0,0 +1,27 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+class BufferPool {
+    private final int bufferSize;
+    private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+
+    BufferPool(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    ByteBuffer acquire() {
+        ByteBuffer buf = free.poll();
+        return buf != null ? buf : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    void release(ByteBuffer buf) {
+        buf.clear();
+        free.add(buf);
+    }
+}
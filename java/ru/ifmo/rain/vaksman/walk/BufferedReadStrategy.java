@@ -0,0 +1,28 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.Consumer;
+
+class BufferedReadStrategy implements ReadStrategy {
+    private final BufferPool pool;
+
+    BufferedReadStrategy(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void read(FileChannel channel, Consumer<ByteBuffer> consumer) throws IOException {
+        ByteBuffer buf = pool.acquire();
+        try {
+            while (channel.read(buf) >= 0) {
+                buf.flip();
+                consumer.accept(buf);
+                buf.clear();
+            }
+        } finally {
+            pool.release(buf);
+        }
+    }
+}
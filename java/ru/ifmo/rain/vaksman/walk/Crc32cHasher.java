@@ -0,0 +1,18 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+class Crc32cHasher implements Hasher {
+    private final CRC32C crc = new CRC32C();
+
+    @Override
+    public void accept(ByteBuffer buf) {
+        crc.update(buf.duplicate());
+    }
+
+    @Override
+    public byte[] digest() {
+        return ByteBuffer.allocate(4).putInt((int) crc.getValue()).array();
+    }
+}
@@ -0,0 +1,282 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+class DuplicateFinder extends FileVisitor {
+    private static final int PREFIX_LENGTH = 4096;
+    private static final int COMPARE_BUFFER = 64 << 10;
+    private static final int WEAK_HASH_LENGTH = 4;
+    private static final int MAX_OPEN = 64;
+
+    private final FileHasher hasher;
+    private final Map<Long, List<Candidate>> bySize = new LinkedHashMap<>();
+    private final Set<Object> seen = new HashSet<>();
+
+    DuplicateFinder(FileHasher hasher) {
+        super(null, hasher);
+        this.hasher = hasher;
+    }
+
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        if (attrs.size() == 0) {
+            return FileVisitResult.CONTINUE;
+        }
+        Object key = attrs.fileKey() != null ? attrs.fileKey() : file.toAbsolutePath().normalize();
+        if (!seen.add(key)) {
+            return FileVisitResult.CONTINUE;
+        }
+        bySize.computeIfAbsent(attrs.size(), s -> new ArrayList<>()).add(new Candidate(file, attrs));
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+        hasher.metrics().error("Unable to visit the following file: " + file + "\nReason: " + exc.getMessage());
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    void writeFailed(String file) {
+    }
+
+    void write(ResultWriter out) {
+        boolean weak = hasher.zero().length <= WEAK_HASH_LENGTH;
+        List<List<Candidate>> clusters = new ArrayList<>();
+        for (Map.Entry<Long, List<Candidate>> e : bySize.entrySet()) {
+            if (e.getValue().size() < 2) {
+                continue;
+            }
+            List<List<Candidate>> groups = e.getKey() > PREFIX_LENGTH
+                    ? split(e.getValue(), c -> hasher.computePrefix(c.file, PREFIX_LENGTH))
+                    : Collections.singletonList(e.getValue());
+            for (List<Candidate> group : groups) {
+                if (weak && group.size() <= MAX_OPEN) {
+                    clusters.addAll(compare(group));
+                    continue;
+                }
+                for (List<Candidate> sameHash : split(group, c -> c.hash = hasher.compute(c.file, c.attrs))) {
+                    clusters.addAll(weak ? verify(sameHash) : Collections.singletonList(sameHash));
+                }
+            }
+        }
+        clusters.sort(Comparator.comparingLong((List<Candidate> c) -> c.get(0).attrs.size()).reversed());
+        try {
+            for (List<Candidate> cluster : clusters) {
+                for (Candidate c : cluster) {
+                    out.accept(c.hash, c.file.toString());
+                }
+                out.endGroup();
+            }
+        } catch (IOException e) {
+            hasher.metrics().error("Unable to write in the output file:\n" + e.getMessage());
+        }
+    }
+
+    private List<List<Candidate>> split(List<Candidate> group, HashStep step) {
+        Map<ByteBuffer, List<Candidate>> byHash = new LinkedHashMap<>();
+        for (Candidate c : group) {
+            try {
+                byHash.computeIfAbsent(ByteBuffer.wrap(step.apply(c)), h -> new ArrayList<>()).add(c);
+            } catch (IOException e) {
+                hasher.metrics().error("Error occurred during reading the following file: " + c.file + "\nReason: " + e.getMessage());
+            }
+        }
+        List<List<Candidate>> res = new ArrayList<>();
+        for (List<Candidate> candidates : byHash.values()) {
+            if (candidates.size() > 1) {
+                res.add(candidates);
+            }
+        }
+        return res;
+    }
+
+    private List<List<Candidate>> compare(List<Candidate> group) {
+        List<Source> sources = new ArrayList<>();
+        try {
+            for (Candidate c : group) {
+                try {
+                    sources.add(new Source(c, hasher.newHasher(c.attrs)));
+                } catch (IOException e) {
+                    hasher.metrics().error("Error occurred during reading the following file: " + c.file + "\nReason: " + e.getMessage());
+                }
+            }
+            List<List<Source>> classes = Collections.singletonList(sources);
+            boolean end = false;
+            while (!end && !classes.isEmpty()) {
+                end = true;
+                List<List<Source>> next = new ArrayList<>();
+                for (List<Source> cls : classes) {
+                    List<List<Source>> parts = new ArrayList<>();
+                    for (Source source : cls) {
+                        try {
+                            source.fill();
+                        } catch (IOException e) {
+                            hasher.metrics().error("Error occurred during reading the following file: " + source.candidate.file + "\nReason: " + e.getMessage());
+                            continue;
+                        }
+                        List<Source> match = null;
+                        for (List<Source> part : parts) {
+                            if (part.get(0).sameChunk(source)) {
+                                match = part;
+                                break;
+                            }
+                        }
+                        if (match == null) {
+                            match = new ArrayList<>();
+                            parts.add(match);
+                        }
+                        match.add(source);
+                    }
+                    for (List<Source> part : parts) {
+                        if (part.size() > 1) {
+                            end &= part.get(0).end;
+                            next.add(part);
+                        }
+                    }
+                }
+                classes = next;
+            }
+            List<List<Candidate>> res = new ArrayList<>();
+            for (List<Source> cls : classes) {
+                List<Candidate> cluster = new ArrayList<>();
+                for (Source source : cls) {
+                    try {
+                        source.finish();
+                        cluster.add(source.candidate);
+                    } catch (IOException e) {
+                        hasher.metrics().error("Error occurred during reading the following file: " + source.candidate.file + "\nReason: " + e.getMessage());
+                    }
+                }
+                if (cluster.size() > 1) {
+                    res.add(cluster);
+                }
+            }
+            return res;
+        } finally {
+            for (Source source : sources) {
+                source.close();
+            }
+        }
+    }
+
+    private List<List<Candidate>> verify(List<Candidate> sameHash) {
+        List<List<Candidate>> classes = new ArrayList<>();
+        for (Candidate c : sameHash) {
+            try {
+                List<Candidate> match = null;
+                for (List<Candidate> cls : classes) {
+                    if (sameContent(cls.get(0).file, c.file)) {
+                        match = cls;
+                        break;
+                    }
+                }
+                if (match == null) {
+                    match = new ArrayList<>();
+                    classes.add(match);
+                }
+                match.add(c);
+            } catch (IOException e) {
+                hasher.metrics().error("Error occurred during reading the following file: " + c.file + "\nReason: " + e.getMessage());
+            }
+        }
+        classes.removeIf(cls -> cls.size() < 2);
+        return classes;
+    }
+
+    private static boolean sameContent(Path a, Path b) throws IOException {
+        try (FileChannel first = FileChannel.open(a, StandardOpenOption.READ);
+             FileChannel second = FileChannel.open(b, StandardOpenOption.READ)) {
+            ByteBuffer x = ByteBuffer.allocate(COMPARE_BUFFER);
+            ByteBuffer y = ByteBuffer.allocate(COMPARE_BUFFER);
+            while (true) {
+                x.clear();
+                y.clear();
+                boolean endX = fill(first, x);
+                boolean endY = fill(second, y);
+                x.flip();
+                y.flip();
+                if (!x.equals(y)) {
+                    return false;
+                }
+                if (endX || endY) {
+                    return endX && endY;
+                }
+            }
+        }
+    }
+
+    private static boolean fill(FileChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class Source {
+        private final Candidate candidate;
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocate(COMPARE_BUFFER);
+        private final Hasher digest;
+        private boolean end;
+
+        private Source(Candidate candidate, Hasher digest) throws IOException {
+            this.candidate = candidate;
+            this.digest = digest;
+            channel = FileChannel.open(candidate.file, StandardOpenOption.READ);
+        }
+
+        private void fill() throws IOException {
+            buf.clear();
+            end = DuplicateFinder.fill(channel, buf);
+            buf.flip();
+            if (digest != null) {
+                digest.accept(buf.duplicate());
+            }
+        }
+
+        private boolean sameChunk(Source other) {
+            return end == other.end && buf.equals(other.buf);
+        }
+
+        private void finish() throws IOException {
+            if (digest == null) {
+                candidate.hash = hasher.compute(candidate.file, candidate.attrs);
+            } else {
+                candidate.hash = digest.digest();
+                hasher.remember(candidate.file, candidate.attrs, candidate.hash);
+            }
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private interface HashStep {
+        byte[] apply(Candidate c) throws IOException;
+    }
+
+    private static class Candidate {
+        private final Path file;
+        private final BasicFileAttributes attrs;
+        private byte[] hash;
+
+        private Candidate(Path file, BasicFileAttributes attrs) {
+            this.file = file;
+            this.attrs = attrs;
+        }
+    }
+}
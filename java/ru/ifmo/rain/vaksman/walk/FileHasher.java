@@ -0,0 +1,133 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.Consumer;
+
+class FileHasher {
+    private final ReadStrategy strategy;
+    private final HashFunction function;
+    private final HashCache cache;
+    private final TreeHasher treeHasher;
+    private final WalkMetrics metrics;
+
+    FileHasher(ReadStrategy strategy, HashFunction function, HashCache cache, TreeHasher treeHasher, WalkMetrics metrics) {
+        this.strategy = strategy;
+        this.function = function;
+        this.cache = cache;
+        this.treeHasher = treeHasher;
+        this.metrics = metrics;
+    }
+
+    WalkMetrics metrics() {
+        return metrics;
+    }
+
+    byte[] hash(Path file, BasicFileAttributes attrs) {
+        try {
+            return compute(file, attrs);
+        } catch (ClosedByInterruptException | InterruptedIOException e) {
+            Thread.currentThread().interrupt();
+            return zero();
+        } catch (IOException e) {
+            metrics.error("Error occurred during reading the following file: " + file + "\nReason: " + e.getMessage());
+            return zero();
+        }
+    }
+
+    byte[] compute(Path file, BasicFileAttributes attrs) throws IOException {
+        if (cache == null) {
+            return read(file);
+        }
+        String key = file.toAbsolutePath().toString();
+        HashCache.Entry entry = cache.get(key, attrs);
+        if (entry != null) {
+            metrics.cached();
+            return entry.hash;
+        }
+        byte[] hash = read(file);
+        cache.put(key, attrs, hash);
+        return hash;
+    }
+
+    byte[] computePrefix(Path file, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int read = 0;
+            while (buf.hasRemaining() && read >= 0) {
+                read = channel.read(buf);
+            }
+        }
+        buf.flip();
+        Hasher hasher = function.newHasher();
+        hasher.accept(buf);
+        return hasher.digest();
+    }
+
+    Hasher newHasher(BasicFileAttributes attrs) {
+        return treeHasher != null && attrs.size() > treeHasher.chunkSize() ? null : function.newHasher();
+    }
+
+    void remember(Path file, BasicFileAttributes attrs, byte[] hash) {
+        if (cache != null) {
+            cache.put(file.toAbsolutePath().toString(), attrs, hash);
+        }
+    }
+
+    byte[] zero() {
+        return new byte[function.length()];
+    }
+
+    private byte[] read(Path file) throws IOException {
+        long start = metrics.start();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            metrics.record(metrics.open, start);
+            if (treeHasher != null && channel.size() > treeHasher.chunkSize()) {
+                start = metrics.start();
+                byte[] hash = treeHasher.hash(channel);
+                metrics.record(metrics.read, start);
+                metrics.file(channel.size());
+                return hash;
+            }
+            Hasher hasher = function.newHasher();
+            if (!metrics.enabled()) {
+                strategy.read(channel, hasher);
+                return hasher.digest();
+            }
+            TimedHasher timed = new TimedHasher(hasher);
+            start = System.nanoTime();
+            strategy.read(channel, timed);
+            long finished = System.nanoTime();
+            byte[] hash = hasher.digest();
+            long hashNanos = timed.nanos + System.nanoTime() - finished;
+            metrics.read.record(finished - start - timed.nanos);
+            metrics.hash.record(hashNanos);
+            metrics.file(timed.bytes);
+            return hash;
+        }
+    }
+
+    private static class TimedHasher implements Consumer<ByteBuffer> {
+        private final Hasher hasher;
+        private long nanos;
+        private long bytes;
+
+        private TimedHasher(Hasher hasher) {
+            this.hasher = hasher;
+        }
+
+        @Override
+        public void accept(ByteBuffer buf) {
+            long start = System.nanoTime();
+            bytes += buf.remaining();
+            hasher.accept(buf);
+            nanos += System.nanoTime() - start;
+        }
+    }
+}
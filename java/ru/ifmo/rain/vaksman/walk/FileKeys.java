@@ -0,0 +1,21 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+final class FileKeys {
+    private static final Pattern INODE = Pattern.compile("ino=(\\d+)");
+
+    private FileKeys() {
+    }
+
+    static long inode(BasicFileAttributes attrs) {
+        Object fileKey = attrs.fileKey();
+        if (fileKey == null) {
+            return -1;
+        }
+        Matcher matcher = INODE.matcher(fileKey.toString());
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+}
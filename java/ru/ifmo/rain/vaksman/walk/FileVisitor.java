@@ -1,57 +1,67 @@
 package ru.ifmo.rain.vaksman.walk;
 
-import java.io.*;
-import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 
 public class FileVisitor extends SimpleFileVisitor<Path> {
-    private Writer writer;
-    private byte[] buf;
+    private ResultSink sink;
+    private FileHasher hasher;
+    private WalkMetrics metrics;
+    private long lastVisit;
 
-    FileVisitor(Writer writer, byte[] buf) {
-        this.writer = writer;
-        this.buf = buf;
+    FileVisitor(ResultSink sink, FileHasher hasher) {
+        this.sink = sink;
+        this.hasher = hasher;
+        this.metrics = hasher.metrics();
+    }
+
+    void walk(String root) throws IOException {
+        lastVisit = metrics.start();
+        try {
+            Files.walkFileTree(Paths.get(root), this);
+        } catch (InvalidPathException e) {
+            writeFailed(root);
+            metrics.error("Invalid path name of the following file: " + root + "\nReason: " + e.getMessage());
+        } catch (SecurityException e) {
+            writeFailed(root);
+            metrics.error("Unable to access the following file: " + root + "\nReason: " + e.getMessage());
+        }
     }
 
     @Override
     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-        int hashValue = 0x811c9dc5;
-        try (InputStream in = Files.newInputStream(file)) {
-            int t;
-            while ((t = in.read(buf)) >= 0) {
-                hashValue = hash(hashValue, buf, t);
-            }
-        } catch(IOException e) {
-            hashValue = 0;
-            System.out.println("Error occurred during reading the following file: " + file + "\nReason: " + e.getMessage());
-        } finally {
-            writeData(hashValue, file.toString());
-        }
-        return FileVisitResult.CONTINUE;
+        metrics.record(metrics.traversal, lastVisit);
+        writeData(hasher.hash(file, attrs), file.toString());
+        lastVisit = metrics.start();
+        return proceed();
     }
 
     @Override
     public FileVisitResult visitFileFailed(Path file, IOException exc) {
-        writeData(0, file.toString());
-        System.out.println("Unable to visit the following file: " + file + "\nReason: " + exc.getMessage());
-        return FileVisitResult.CONTINUE;
+        writeFailed(file.toString());
+        metrics.error("Unable to visit the following file: " + file + "\nReason: " + exc.getMessage());
+        return proceed();
     }
 
-    private int hash(int h, final byte[] buf, int t) {
-        for (int i = 0; i < t; ++i) {
-            h = (h * 0x01000193) ^ (buf[i] & 0xff);
-        }
-        return h;
+    private FileVisitResult proceed() {
+        return Thread.currentThread().isInterrupted() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+    }
+
+    void writeFailed(String file) {
+        writeData(hasher.zero(), file);
     }
 
-    void writeData(int hash, String file) {
+    void writeData(byte[] hash, String file) {
+        long start = metrics.start();
         try {
-            writer.write(String.format("%08x", hash) + " " + file + System.lineSeparator());
+            sink.accept(hash, file);
+            metrics.record(metrics.write, start);
+        } catch (InterruptedIOException e) {
+            Thread.currentThread().interrupt();
         } catch (IOException e) {
-            System.out.println("Unable to write in the output file:\n" + e.getMessage());
+            metrics.error("Unable to write in the output file:\n" + e.getMessage());
         }
     }
 }
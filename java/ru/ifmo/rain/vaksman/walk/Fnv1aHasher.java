@@ -0,0 +1,21 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.nio.ByteBuffer;
+
+class Fnv1aHasher implements Hasher {
+    private int value = 0x811c9dc5;
+
+    @Override
+    public void accept(ByteBuffer buf) {
+        int h = value;
+        for (int i = buf.position(), limit = buf.limit(); i < limit; ++i) {
+            h = (h * 0x01000193) ^ (buf.get(i) & 0xff);
+        }
+        value = h;
+    }
+
+    @Override
+    public byte[] digest() {
+        return ByteBuffer.allocate(4).putInt(value).array();
+    }
+}
@@ -0,0 +1,45 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+enum HashAlgorithm implements HashFunction {
+    FNV(4, Fnv1aHasher::new),
+    CRC32C(4, Crc32cHasher::new),
+    XXHASH64(8, XxHash64Hasher::new),
+    SHA256(32, Sha256Hasher::new);
+
+    private final int length;
+    private final Supplier<Hasher> factory;
+
+    HashAlgorithm(int length, Supplier<Hasher> factory) {
+        this.length = length;
+        this.factory = factory;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public Hasher newHasher() {
+        return factory.get();
+    }
+
+    static HashAlgorithm forName(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown hash algorithm " + name + ", expected one of " + names());
+        }
+    }
+
+    static String names() {
+        return Arrays.stream(values())
+                .map(a -> a.name().toLowerCase(Locale.ROOT))
+                .collect(Collectors.joining("|"));
+    }
+}
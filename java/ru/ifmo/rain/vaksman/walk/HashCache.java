@@ -0,0 +1,124 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+class HashCache {
+    private static final int MAGIC = 0x57414c4b;
+    private static final int VERSION = 2;
+
+    private final String algorithm;
+    private final Map<String, Entry> previous;
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    private volatile boolean keepUnvisited;
+
+    private HashCache(String algorithm, Map<String, Entry> previous) {
+        this.algorithm = algorithm;
+        this.previous = previous;
+    }
+
+    static HashCache empty(String algorithm) {
+        return new HashCache(algorithm, new ConcurrentHashMap<>());
+    }
+
+    static HashCache load(Path file, String algorithm) throws IOException {
+        if (Files.notExists(file)) {
+            return empty(algorithm);
+        }
+        Map<String, Entry> entries = new ConcurrentHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported format of the hash cache " + file);
+            }
+            if (!in.readUTF().equals(algorithm)) {
+                return empty(algorithm);
+            }
+            for (int cnt = in.readInt(); cnt > 0; cnt--) {
+                String key = in.readUTF();
+                long size = in.readLong();
+                long mtime = in.readLong();
+                long inode = in.readLong();
+                byte[] hash = new byte[in.readUnsignedByte()];
+                in.readFully(hash);
+                entries.put(key, new Entry(size, mtime, inode, hash));
+            }
+        }
+        return new HashCache(algorithm, entries);
+    }
+
+    void keepUnvisited() {
+        keepUnvisited = true;
+    }
+
+    void save(Path file) throws IOException {
+        Map<String, Entry> entries = current;
+        if (keepUnvisited) {
+            entries = new HashMap<>(previous);
+            entries.putAll(current);
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(algorithm);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.mtime);
+                    out.writeLong(entry.inode);
+                    out.writeByte(entry.hash.length);
+                    out.write(entry.hash);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    Entry get(String key, BasicFileAttributes attrs) {
+        Entry entry = previous.get(key);
+        if (entry == null || !entry.matches(attrs)) {
+            return null;
+        }
+        current.put(key, entry);
+        return entry;
+    }
+
+    void put(String key, BasicFileAttributes attrs, byte[] hash) {
+        current.put(key, new Entry(attrs.size(), mtime(attrs), FileKeys.inode(attrs), hash));
+    }
+
+    private static long mtime(BasicFileAttributes attrs) {
+        return attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    static class Entry {
+        private final long size;
+        private final long mtime;
+        private final long inode;
+        final byte[] hash;
+
+        private Entry(long size, long mtime, long inode, byte[] hash) {
+            this.size = size;
+            this.mtime = mtime;
+            this.inode = inode;
+            this.hash = hash;
+        }
+
+        private boolean matches(BasicFileAttributes attrs) {
+            return size == attrs.size() && mtime == mtime(attrs) && inode == FileKeys.inode(attrs);
+        }
+    }
+}
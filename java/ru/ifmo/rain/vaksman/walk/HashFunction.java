@@ -0,0 +1,7 @@
+package ru.ifmo.rain.vaksman.walk;
+
+interface HashFunction {
+    int length();
+
+    Hasher newHasher();
+}
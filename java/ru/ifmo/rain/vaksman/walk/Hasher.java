@@ -0,0 +1,8 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+interface Hasher extends Consumer<ByteBuffer> {
+    byte[] digest();
+}
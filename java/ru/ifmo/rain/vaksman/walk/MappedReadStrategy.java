@@ -0,0 +1,18 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.Consumer;
+
+class MappedReadStrategy implements ReadStrategy {
+    private static final long WINDOW = 1L << 30;
+
+    @Override
+    public void read(FileChannel channel, Consumer<ByteBuffer> consumer) throws IOException {
+        long size = channel.size();
+        for (long position = 0; position < size; position += WINDOW) {
+            consumer.accept(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position)));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class MetadataPrefetcher implements AutoCloseable {
+    private final ExecutorService workers;
+    private final int depth;
+
+    MetadataPrefetcher(int threads, int depth) {
+        if (threads <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Amount of threads and lookahead depth must be positive");
+        }
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "metadata-prefetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.depth = depth;
+    }
+
+    void walkFileTree(Path start, java.nio.file.FileVisitor<? super Path> visitor) throws IOException {
+        Node root = new Node(start);
+        try {
+            root.attrs = Files.readAttributes(start, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            root.error = e;
+        }
+        visit(root, visitor);
+    }
+
+    private FileVisitResult visit(Node node, java.nio.file.FileVisitor<? super Path> visitor) throws IOException {
+        if (node.error != null) {
+            return visitor.visitFileFailed(node.path, node.error);
+        }
+        if (!node.attrs.isDirectory()) {
+            return visitor.visitFile(node.path, node.attrs);
+        }
+        Listing listing = await(node);
+        if (listing.openError != null) {
+            return visitor.visitFileFailed(node.path, listing.openError);
+        }
+        FileVisitResult result = visitor.preVisitDirectory(node.path, node.attrs);
+        if (result != FileVisitResult.CONTINUE) {
+            return result == FileVisitResult.SKIP_SUBTREE ? FileVisitResult.CONTINUE : result;
+        }
+        for (Node child : listing.children) {
+            result = visit(child, visitor);
+            if (result == FileVisitResult.TERMINATE) {
+                return result;
+            }
+            if (result == FileVisitResult.SKIP_SIBLINGS) {
+                break;
+            }
+        }
+        return visitor.postVisitDirectory(node.path, listing.iterationError);
+    }
+
+    private Listing await(Node dir) throws IOException {
+        if (dir.listing == null) {
+            dir.listing = list(dir.path, depth);
+        }
+        Listing listing;
+        try {
+            listing = dir.listing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while listing " + dir.path);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        dir.listing = null;
+        for (Node child : listing.children) {
+            if (child.isDirectory() && child.listing == null) {
+                child.listing = list(child.path, depth - 1);
+            }
+        }
+        return listing;
+    }
+
+    private Future<Listing> list(Path dir, int ahead) {
+        return workers.submit(() -> read(dir, ahead));
+    }
+
+    private Listing read(Path dir, int ahead) {
+        Listing listing = new Listing();
+        DirectoryStream<Path> stream;
+        try {
+            stream = Files.newDirectoryStream(dir);
+        } catch (IOException e) {
+            listing.openError = e;
+            return listing;
+        }
+        try {
+            for (Path path : stream) {
+                Node child = new Node(path);
+                try {
+                    child.attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    child.error = e;
+                }
+                if (ahead > 0 && child.isDirectory()) {
+                    child.listing = list(path, ahead - 1);
+                }
+                listing.children.add(child);
+            }
+        } catch (DirectoryIteratorException e) {
+            listing.iterationError = e.getCause();
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+        }
+        return listing;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    private static class Node {
+        private final Path path;
+        private BasicFileAttributes attrs;
+        private IOException error;
+        private Future<Listing> listing;
+
+        private Node(Path path) {
+            this.path = path;
+        }
+
+        private boolean isDirectory() {
+            return error == null && attrs.isDirectory();
+        }
+    }
+
+    private static class Listing {
+        private final List<Node> children = new ArrayList<>();
+        private IOException openError;
+        private IOException iterationError;
+    }
+}
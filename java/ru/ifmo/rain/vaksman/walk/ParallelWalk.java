@@ -0,0 +1,328 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ParallelWalk implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final Entry END = new Entry(null, null, null);
+
+    private final ExecutorService walkers;
+    private final ExecutorService hashers;
+    private final FileHasher fileHasher;
+    private final WalkMetrics metrics;
+    private final MetadataPrefetcher prefetcher;
+    private final int inodeBatch;
+    private final int threads;
+    private final int lookahead;
+    private final AtomicInteger tasks = new AtomicInteger();
+    private final Deque<Root> segments = new ArrayDeque<>();
+    private final List<Pending> inlineBatch = new ArrayList<>();
+    private int buffered;
+
+    ParallelWalk(int threads, FileHasher fileHasher) {
+        this(threads, fileHasher, 0, 0);
+    }
+
+    ParallelWalk(int threads, FileHasher fileHasher, int prefetchDepth, int inodeBatch) {
+        if (threads <= 0 || prefetchDepth < 0 || inodeBatch < 0) {
+            throw new IllegalArgumentException("One of given arguments is incorrect");
+        }
+        this.inodeBatch = inodeBatch;
+        walkers = Executors.newFixedThreadPool(threads, daemon("walker"));
+        hashers = Executors.newFixedThreadPool(threads, daemon("hasher"));
+        prefetcher = prefetchDepth > 0 ? new MetadataPrefetcher(threads, prefetchDepth) : null;
+        lookahead = 2 * threads;
+        this.threads = threads;
+        this.fileHasher = fileHasher;
+        this.metrics = fileHasher.metrics();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    void walk(RootSource roots, FileVisitor out) throws IOException, InterruptedException {
+        Queue<Root> window = new ArrayDeque<>();
+        String curLine;
+        while ((curLine = roots.next()) != null) {
+            Root root = new Root(curLine);
+            tasks.incrementAndGet();
+            walkers.submit(root);
+            window.add(root);
+            if (window.size() >= lookahead) {
+                drain(window.poll(), out);
+            }
+        }
+        while (!window.isEmpty()) {
+            drain(window.poll(), out);
+        }
+    }
+
+    private void drain(Root root, FileVisitor out) throws IOException, InterruptedException {
+        enter(root, out);
+        while (!segments.isEmpty() && writeHead(out, true)) {
+        }
+    }
+
+    private void enter(Root root, FileVisitor out) throws IOException, InterruptedException {
+        segments.push(root);
+        if (root.claim()) {
+            root.walkInline(out);
+        }
+    }
+
+    private boolean writeHead(FileVisitor out, boolean force) throws IOException, InterruptedException {
+        Root top = segments.peek();
+        if (top.error != null) {
+            segments.pop();
+            throw top.error;
+        }
+        Entry entry;
+        if (top.inline != null) {
+            entry = top.window.peek();
+            if (entry == null) {
+                if (top.walking) {
+                    return false;
+                }
+                segments.pop();
+                return true;
+            }
+            if (entry.batched) {
+                if (!force) {
+                    return false;
+                }
+                schedule(inlineBatch);
+            }
+            top.window.poll();
+            buffered--;
+        } else {
+            entry = top.entries.take();
+            if (entry == END) {
+                segments.pop();
+                if (top.error != null) {
+                    throw top.error;
+                }
+                return true;
+            }
+        }
+        write(entry, out);
+        return true;
+    }
+
+    private void write(Entry entry, FileVisitor out) throws IOException, InterruptedException {
+        if (entry.subtree != null) {
+            enter(entry.subtree, out);
+            return;
+        }
+        byte[] hash;
+        try {
+            hash = entry.hash.get();
+        } catch (ExecutionException e) {
+            hash = fileHasher.zero();
+            metrics.error("Unable to hash the following file: " + entry.file + "\nReason: " + e.getCause());
+        }
+        out.writeData(hash, entry.file);
+    }
+
+    private void schedule(List<Pending> batch) {
+        batch.sort(Comparator.comparingLong(p -> p.inode));
+        for (Pending pending : batch) {
+            pending.entry.batched = false;
+            hashers.execute(pending.task);
+        }
+        batch.clear();
+    }
+
+    @Override
+    public void close() {
+        walkers.shutdownNow();
+        hashers.shutdownNow();
+        if (prefetcher != null) {
+            prefetcher.close();
+        }
+        try {
+            walkers.awaitTermination(5, TimeUnit.SECONDS);
+            hashers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Entry {
+        private final String file;
+        private final Future<byte[]> hash;
+        private final Root subtree;
+        private boolean batched;
+
+        private Entry(String file, Future<byte[]> hash, Root subtree) {
+            this.file = file;
+            this.hash = hash;
+            this.subtree = subtree;
+        }
+    }
+
+    private static class Pending {
+        private final long inode;
+        private final FutureTask<byte[]> task;
+        private final Entry entry;
+
+        private Pending(long inode, FutureTask<byte[]> task, Entry entry) {
+            this.inode = inode;
+            this.task = task;
+            this.entry = entry;
+        }
+    }
+
+    private class Root extends SimpleFileVisitor<Path> implements Runnable {
+        private final String line;
+        private final Path start;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final BlockingQueue<Entry> entries = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+        private final Queue<Entry> window = new ArrayDeque<>();
+        private List<Pending> batch = new ArrayList<>();
+        private volatile IOException error;
+        private FileVisitor inline;
+        private boolean walking;
+        private Path path;
+        private long lastVisit;
+
+        private Root(String line) {
+            this.line = line;
+            this.start = null;
+        }
+
+        private Root(Path start) {
+            this.line = start.toString();
+            this.start = start;
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (claim()) {
+                    walk();
+                }
+            } finally {
+                tasks.decrementAndGet();
+            }
+        }
+
+        private void walkInline(FileVisitor out) {
+            inline = out;
+            batch = inlineBatch;
+            walking = true;
+            walk();
+            walking = false;
+        }
+
+        private void walk() {
+            lastVisit = metrics.start();
+            try {
+                path = start != null ? start : Paths.get(line);
+                if (prefetcher != null) {
+                    prefetcher.walkFileTree(path, this);
+                } else {
+                    Files.walkFileTree(path, this);
+                }
+            } catch (InvalidPathException e) {
+                put(failed(line));
+                metrics.error("Invalid path name of the following file: " + line + "\nReason: " + e.getMessage());
+            } catch (SecurityException e) {
+                put(failed(line));
+                metrics.error("Unable to access the following file: " + line + "\nReason: " + e.getMessage());
+            } catch (IOException e) {
+                error = e;
+            } catch (RejectedExecutionException ignored) {
+                // the walk was closed while this root was still being visited
+            } finally {
+                if (inline == null) {
+                    schedule(batch);
+                    if (put(END) == FileVisitResult.TERMINATE) {
+                        entries.offer(END);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            if (prefetcher != null || dir.equals(path)) {
+                return FileVisitResult.CONTINUE;
+            }
+            if (tasks.incrementAndGet() > threads) {
+                tasks.decrementAndGet();
+                return FileVisitResult.CONTINUE;
+            }
+            Root subtree = new Root(dir);
+            walkers.execute(subtree);
+            FileVisitResult result = put(new Entry(null, null, subtree));
+            return result == FileVisitResult.CONTINUE ? FileVisitResult.SKIP_SUBTREE : result;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            metrics.record(metrics.traversal, lastVisit);
+            lastVisit = metrics.start();
+            FutureTask<byte[]> task = new FutureTask<>(() -> fileHasher.hash(file, attrs));
+            Entry entry = new Entry(file.toString(), task, null);
+            if (inodeBatch == 0) {
+                hashers.execute(task);
+                return put(entry);
+            }
+            entry.batched = true;
+            batch.add(new Pending(FileKeys.inode(attrs), task, entry));
+            if (batch.size() >= inodeBatch) {
+                schedule(batch);
+            }
+            return put(entry);
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+            metrics.error("Unable to visit the following file: " + file + "\nReason: " + exc.getMessage());
+            return put(failed(file.toString()));
+        }
+
+        private FileVisitResult put(Entry entry) {
+            if (Thread.currentThread().isInterrupted()) {
+                return FileVisitResult.TERMINATE;
+            }
+            try {
+                if (inline != null) {
+                    window.add(entry);
+                    buffered++;
+                    while (buffered > Math.max(lookahead, inodeBatch) && writeHead(inline, false)) {
+                    }
+                } else if (!entries.offer(entry)) {
+                    schedule(batch);
+                    entries.put(entry);
+                }
+                return FileVisitResult.CONTINUE;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return FileVisitResult.TERMINATE;
+            } catch (IOException e) {
+                error = e;
+                return FileVisitResult.TERMINATE;
+            }
+        }
+
+        private Entry failed(String file) {
+            return new Entry(file, CompletableFuture.completedFuture(fileHasher.zero()), null);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.Consumer;
+
+interface ReadStrategy {
+    void read(FileChannel channel, Consumer<ByteBuffer> consumer) throws IOException;
+
+    static ReadStrategy adaptive(BufferPool pool, long mmapThreshold) {
+        ReadStrategy buffered = new BufferedReadStrategy(pool);
+        ReadStrategy mapped = new MappedReadStrategy();
+        return (channel, consumer) -> (channel.size() >= mmapThreshold ? mapped : buffered).read(channel, consumer);
+    }
+}
@@ -1,37 +1,59 @@
 package ru.ifmo.rain.vaksman.walk;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 public class RecursiveWalk {
     public static void main(String[] args) {
-        if (args == null || args.length != 2 || args[0] == null || args[1] == null) {
-            System.out.println("Incorrect input format.\nUsage:\nRecursiveWalk <input_file> <output_file>");
+        WalkOptions options;
+        try {
+            options = WalkOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Incorrect input format: " + e.getMessage() + "\nUsage:\n" + WalkOptions.USAGE);
             return;
         }
 
-        try (LineNumberReader reader = new LineNumberReader(new InputStreamReader(new FileInputStream(args[0]), "UTF-8"))) {
-            try (Writer writer = new OutputStreamWriter(new FileOutputStream(args[1]), "UTF-8")) {
-                String curLine;
-                byte[] buf = new byte[1024];
-                FileVisitor fileVisitor = new FileVisitor(writer, buf);
+        try (LineNumberReader reader = new LineNumberReader(new InputStreamReader(new FileInputStream(options.input), "UTF-8"))) {
+            BufferPool pool = new BufferPool(options.bufferSize);
+            try (ResultWriter writer = new ResultWriter(new FileOutputStream(options.output));
+                 WalkMetrics metrics = options.stats != null || options.progress > 0 ? new WalkMetrics() : WalkMetrics.DISABLED;
+                 TreeHasher treeHasher = options.chunkSize > 0
+                         ? new TreeHasher(options.algorithm, pool, options.chunkSize, Runtime.getRuntime().availableProcessors())
+                         : null) {
+                HashCache cache = options.cache != null ? loadCache(Paths.get(options.cache), options.algorithmId()) : null;
+                if (cache != null && options.dedup) {
+                    cache.keepUnvisited();
+                }
+                FileHasher fileHasher = new FileHasher(
+                        ReadStrategy.adaptive(pool, options.mmapThreshold),
+                        options.algorithm,
+                        cache,
+                        treeHasher,
+                        metrics);
+                if (options.progress > 0) {
+                    metrics.startProgress(options.progress);
+                }
+                FileVisitor fileVisitor = new FileVisitor(writer, fileHasher);
                 try {
-                    while ((curLine = reader.readLine()) != null) {
-                        try {
-                            Files.walkFileTree(Paths.get(curLine), fileVisitor);
-                        } catch (InvalidPathException e) {
-                            fileVisitor.writeData(0, curLine);
-                            System.out.println("Invalid path name of the following file: " + curLine + "\nReason: " + e.getMessage());
-                        } catch (SecurityException e) {
-                            fileVisitor.writeData(0, curLine);
-                            System.out.println("Unable to access the following file: " + curLine + "\nReason: " + e.getMessage());
-                        }
+                    if (options.dedup) {
+                        DuplicateFinder finder = new DuplicateFinder(fileHasher);
+                        walk(reader, finder);
+                        finder.write(writer);
+                    } else if (options.threads > 1 || options.prefetch > 0 || options.inodeBatch > 0) {
+                        walkInParallel(reader, fileVisitor, fileHasher, options);
+                    } else {
+                        walk(reader, fileVisitor);
                     }
                 } catch (IOException e) {
                     System.out.println("Read error in the input file:\n" + e.getMessage());
                 }
+                if (cache != null) {
+                    saveCache(cache, Paths.get(options.cache));
+                }
+                if (options.stats != null) {
+                    writeSummary(metrics, Paths.get(options.stats));
+                }
             } catch (FileNotFoundException e) {
                 System.out.println("Unable to open the output file:\n" + e.getMessage());
             }
@@ -45,4 +67,46 @@ public class RecursiveWalk {
             System.out.println("Runtime exception:\n" + e.getMessage());
         }
     }
+
+    private static HashCache loadCache(Path file, String algorithm) {
+        try {
+            return HashCache.load(file, algorithm);
+        } catch (IOException e) {
+            System.out.println("Unable to load the hash cache, all files will be rehashed:\n" + e.getMessage());
+            return HashCache.empty(algorithm);
+        }
+    }
+
+    private static void saveCache(HashCache cache, Path file) {
+        try {
+            cache.save(file);
+        } catch (IOException e) {
+            System.out.println("Unable to save the hash cache:\n" + e.getMessage());
+        }
+    }
+
+    private static void writeSummary(WalkMetrics metrics, Path file) {
+        try {
+            metrics.writeSummary(file);
+        } catch (IOException e) {
+            System.out.println("Unable to write the walk statistics:\n" + e.getMessage());
+        }
+    }
+
+    private static void walk(BufferedReader reader, FileVisitor fileVisitor) throws IOException {
+        String curLine;
+        while ((curLine = reader.readLine()) != null) {
+            fileVisitor.walk(curLine);
+        }
+    }
+
+    private static void walkInParallel(BufferedReader reader, FileVisitor fileVisitor, FileHasher fileHasher,
+                                       WalkOptions options) throws IOException {
+        try (ParallelWalk parallelWalk = new ParallelWalk(options.threads, fileHasher, options.prefetch, options.inodeBatch)) {
+            parallelWalk.walk(reader::readLine, fileVisitor);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Walk was interrupted:\n" + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,7 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.IOException;
+
+interface ResultSink {
+    void accept(byte[] hash, String file) throws IOException;
+}
@@ -0,0 +1,118 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+class ResultWriter implements ResultSink, Closeable {
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final OutputStream out;
+    private final byte[] buf;
+    private final long flushInterval;
+    private int size;
+    private long lastFlush;
+
+    ResultWriter(OutputStream out) {
+        this(out, 256 << 10, 1000);
+    }
+
+    ResultWriter(OutputStream out, int bufferSize, long flushIntervalMillis) {
+        if (bufferSize < 1024 || flushIntervalMillis < 0) {
+            throw new IllegalArgumentException("Buffer must hold at least 1024 bytes and flush interval must not be negative");
+        }
+        this.out = out;
+        this.buf = new byte[bufferSize];
+        this.flushInterval = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.lastFlush = System.nanoTime();
+    }
+
+    @Override
+    public void accept(byte[] hash, String file) throws IOException {
+        int length = 2 * hash.length + 1 + 3 * file.length() + LINE_SEPARATOR.length;
+        if (length > buf.length - size) {
+            drain();
+        }
+        if (length > buf.length) {
+            writeHex(hash);
+            buf[size++] = ' ';
+            drain();
+            out.write(file.getBytes(StandardCharsets.UTF_8));
+        } else {
+            writeHex(hash);
+            buf[size++] = ' ';
+            writeUtf8(file);
+        }
+        System.arraycopy(LINE_SEPARATOR, 0, buf, size, LINE_SEPARATOR.length);
+        size += LINE_SEPARATOR.length;
+        if (System.nanoTime() - lastFlush >= flushInterval) {
+            flush();
+        }
+    }
+
+    void endGroup() throws IOException {
+        if (LINE_SEPARATOR.length > buf.length - size) {
+            drain();
+        }
+        System.arraycopy(LINE_SEPARATOR, 0, buf, size, LINE_SEPARATOR.length);
+        size += LINE_SEPARATOR.length;
+    }
+
+    private void writeHex(byte[] hash) {
+        for (byte b : hash) {
+            buf[size++] = HEX[(b >> 4) & 0xf];
+            buf[size++] = HEX[b & 0xf];
+        }
+    }
+
+    private void writeUtf8(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[size++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[size++] = (byte) (0xc0 | (c >> 6));
+                buf[size++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buf[size++] = (byte) (0xf0 | (cp >> 18));
+                    buf[size++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    buf[size++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    buf[size++] = (byte) (0x80 | (cp & 0x3f));
+                } else {
+                    buf[size++] = '?';
+                }
+            } else {
+                buf[size++] = (byte) (0xe0 | (c >> 12));
+                buf[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[size++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        if (size > 0) {
+            out.write(buf, 0, size);
+            size = 0;
+        }
+    }
+
+    void flush() throws IOException {
+        drain();
+        out.flush();
+        lastFlush = System.nanoTime();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            out.close();
+        }
+    }
+}
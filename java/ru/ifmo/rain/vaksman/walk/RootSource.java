@@ -0,0 +1,13 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+interface RootSource {
+    String next() throws IOException;
+
+    static RootSource of(Iterable<String> roots) {
+        Iterator<String> it = roots.iterator();
+        return () -> it.hasNext() ? it.next() : null;
+    }
+}
@@ -0,0 +1,27 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+class Sha256Hasher implements Hasher {
+    private final MessageDigest digest;
+
+    Sha256Hasher() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the platform", e);
+        }
+    }
+
+    @Override
+    public void accept(ByteBuffer buf) {
+        digest.update(buf.duplicate());
+    }
+
+    @Override
+    public byte[] digest() {
+        return digest.digest();
+    }
+}
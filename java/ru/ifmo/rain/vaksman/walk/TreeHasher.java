@@ -0,0 +1,90 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+class TreeHasher implements AutoCloseable {
+    private final HashFunction function;
+    private final BufferPool pool;
+    private final long chunkSize;
+    private final ExecutorService workers;
+
+    TreeHasher(HashFunction function, BufferPool pool, long chunkSize, int threads) {
+        if (chunkSize <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Chunk size and amount of threads must be positive");
+        }
+        this.function = function;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "tree-hasher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    long chunkSize() {
+        return chunkSize;
+    }
+
+    byte[] hash(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Future<byte[]>> leaves = new ArrayList<>();
+        for (long position = 0; position < size; position += chunkSize) {
+            long from = position;
+            long to = Math.min(size, position + chunkSize);
+            leaves.add(workers.submit(() -> hashRange(channel, from, to)));
+        }
+        Hasher root = function.newHasher();
+        root.accept(ByteBuffer.allocate(16).putLong(size).putLong(chunkSize).flip());
+        try {
+            for (Future<byte[]> leaf : leaves) {
+                root.accept(ByteBuffer.wrap(leaf.get()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while hashing chunks");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            for (Future<byte[]> leaf : leaves) {
+                leaf.cancel(true);
+            }
+        }
+        return root.digest();
+    }
+
+    private byte[] hashRange(FileChannel channel, long from, long to) throws IOException {
+        Hasher hasher = function.newHasher();
+        ByteBuffer buf = pool.acquire();
+        try {
+            for (long position = from; position < to; ) {
+                buf.limit((int) Math.min(buf.capacity(), to - position));
+                int read = channel.read(buf, position);
+                if (read < 0) {
+                    throw new IOException("File was truncated while hashing");
+                }
+                position += read;
+                buf.flip();
+                hasher.accept(buf);
+                buf.clear();
+            }
+        } finally {
+            pool.release(buf);
+        }
+        return hasher.digest();
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,148 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+class WalkMetrics implements AutoCloseable {
+    static final WalkMetrics DISABLED = new WalkMetrics(false);
+
+    final LatencyHistogram traversal = new LatencyHistogram();
+    final LatencyHistogram open = new LatencyHistogram();
+    final LatencyHistogram read = new LatencyHistogram();
+    final LatencyHistogram hash = new LatencyHistogram();
+    final LatencyHistogram write = new LatencyHistogram();
+
+    private final boolean enabled;
+    private final long started = System.nanoTime();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder cached = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private ScheduledExecutorService reporter;
+
+    WalkMetrics() {
+        this(true);
+    }
+
+    private WalkMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    boolean enabled() {
+        return enabled;
+    }
+
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    void record(LatencyHistogram histogram, long start) {
+        if (enabled) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    void file(long size) {
+        if (enabled) {
+            files.increment();
+            bytes.add(size);
+        }
+    }
+
+    void cached() {
+        if (enabled) {
+            files.increment();
+            cached.increment();
+        }
+    }
+
+    void error(String message) {
+        errors.increment();
+        System.out.println(message);
+    }
+
+    synchronized void startProgress(long periodSeconds) {
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "walk-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> System.err.println(progress()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    String progress() {
+        double seconds = elapsed() / 1e9;
+        return String.format(Locale.ROOT, "[walk] %.1fs: %d files (%.1f/s), %.1f MiB (%.1f MiB/s), %d errors",
+                seconds,
+                files.sum(),
+                files.sum() / seconds,
+                bytes.sum() / 1048576.0,
+                bytes.sum() / 1048576.0 / seconds,
+                errors.sum());
+    }
+
+    void writeSummary(Path file) throws IOException {
+        double seconds = elapsed() / 1e9;
+        Map<String, LatencyHistogram> phases = new LinkedHashMap<>();
+        phases.put("traversal", traversal);
+        phases.put("open", open);
+        phases.put("read", read);
+        phases.put("hash", hash);
+        phases.put("write", write);
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(String.format(Locale.ROOT,
+                    "{%n  \"elapsedMillis\": %d,%n  \"files\": %d,%n  \"cachedFiles\": %d,%n  \"bytes\": %d,%n  \"errors\": %d,%n"
+                            + "  \"filesPerSecond\": %.1f,%n  \"bytesPerSecond\": %.1f,%n  \"phases\": {",
+                    TimeUnit.NANOSECONDS.toMillis(elapsed()),
+                    files.sum(),
+                    cached.sum(),
+                    bytes.sum(),
+                    errors.sum(),
+                    files.sum() / seconds,
+                    bytes.sum() / seconds));
+            String separator = "";
+            for (Map.Entry<String, LatencyHistogram> e : phases.entrySet()) {
+                LatencyHistogram h = e.getValue();
+                out.write(String.format(Locale.ROOT,
+                        "%s%n    \"%s\": {\"count\": %d, \"totalMillis\": %d, \"p50Micros\": %d, \"p90Micros\": %d, "
+                                + "\"p99Micros\": %d, \"p999Micros\": %d, \"maxMicros\": %d}",
+                        separator,
+                        e.getKey(),
+                        h.count(),
+                        TimeUnit.NANOSECONDS.toMillis(h.total()),
+                        micros(h.percentile(0.5)),
+                        micros(h.percentile(0.9)),
+                        micros(h.percentile(0.99)),
+                        micros(h.percentile(0.999)),
+                        micros(h.max())));
+                separator = ",";
+            }
+            out.write(String.format("%n  }%n}%n"));
+        }
+    }
+
+    private long elapsed() {
+        return Math.max(System.nanoTime() - started, 1);
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ru.ifmo.rain.vaksman.walk;
+
+class WalkOptions {
+    static final String USAGE = "RecursiveWalk [-threads <n>] [-buffer <size>] [-mmap <size>] [-cache <index_file>] "
+            + "[-hash " + HashAlgorithm.names() + "] [-chunk <size>] [-dedup] [-stats <json_file>] [-progress <seconds>] [-prefetch <depth>] [-inode-order <batch>] <input_file> <output_file>";
+    static final int DEFAULT_BUFFER_SIZE = 64 << 10;
+    static final long DEFAULT_MMAP_THRESHOLD = 16 << 20;
+
+    String input;
+    String output;
+    int threads = 1;
+    int bufferSize = DEFAULT_BUFFER_SIZE;
+    long mmapThreshold = DEFAULT_MMAP_THRESHOLD;
+    String cache;
+    HashAlgorithm algorithm = HashAlgorithm.FNV;
+    long chunkSize;
+    boolean dedup;
+    String stats;
+    int progress;
+    int prefetch;
+    int inodeBatch;
+
+    static WalkOptions parse(String[] args) {
+        if (args == null) {
+            throw new IllegalArgumentException("Arguments are missing");
+        }
+        WalkOptions options = new WalkOptions();
+        int i = 0;
+        for (; i < args.length && args[i] != null && args[i].startsWith("-"); i++) {
+            String name = args[i];
+            if (name.equals("-dedup")) {
+                options.dedup = true;
+                continue;
+            }
+            if (++i == args.length || args[i] == null) {
+                throw new IllegalArgumentException("Value of the option " + name + " is missing");
+            }
+            switch (name) {
+                case "-threads":
+                    options.threads = parsePositive(name, args[i]);
+                    break;
+                case "-buffer":
+                    options.bufferSize = (int) Math.min(parseSize(name, args[i]), Integer.MAX_VALUE - 8);
+                    break;
+                case "-mmap":
+                    options.mmapThreshold = parseSize(name, args[i]);
+                    break;
+                case "-cache":
+                    options.cache = args[i];
+                    break;
+                case "-hash":
+                    options.algorithm = HashAlgorithm.forName(args[i]);
+                    break;
+                case "-chunk":
+                    options.chunkSize = parseSize(name, args[i]);
+                    break;
+                case "-stats":
+                    options.stats = args[i];
+                    break;
+                case "-progress":
+                    options.progress = parsePositive(name, args[i]);
+                    break;
+                case "-prefetch":
+                    options.prefetch = parsePositive(name, args[i]);
+                    break;
+                case "-inode-order":
+                    options.inodeBatch = parsePositive(name, args[i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        if (args.length - i != 2 || args[i] == null || args[i + 1] == null) {
+            throw new IllegalArgumentException("Input and output files must be specified");
+        }
+        options.input = args[i];
+        options.output = args[i + 1];
+        return options;
+    }
+
+    String algorithmId() {
+        return chunkSize > 0 ? algorithm.name() + "/tree-" + chunkSize : algorithm.name();
+    }
+
+    private static int parsePositive(String name, String value) {
+        try {
+            int res = Integer.parseInt(value);
+            if (res > 0) {
+                return res;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("Value of the option " + name + " must be a positive integer: " + value);
+    }
+
+    private static long parseSize(String name, String value) {
+        int shift = 0;
+        switch (value.isEmpty() ? ' ' : Character.toUpperCase(value.charAt(value.length() - 1))) {
+            case 'K':
+                shift = 10;
+                break;
+            case 'M':
+                shift = 20;
+                break;
+            case 'G':
+                shift = 30;
+                break;
+        }
+        try {
+            long res = Long.parseLong(shift == 0 ? value : value.substring(0, value.length() - 1));
+            if (res > 0 && res <= Long.MAX_VALUE >> shift) {
+                return res << shift;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("Value of the option " + name + " must be a positive size, optionally suffixed with K, M or G: " + value);
+    }
+}
@@ -0,0 +1,35 @@
+package ru.ifmo.rain.vaksman.walk;
+
+public final class WalkRecord {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String file;
+    private final byte[] hash;
+
+    WalkRecord(String file, byte[] hash) {
+        this.file = file;
+        this.hash = hash;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public byte[] getHash() {
+        return hash.clone();
+    }
+
+    public String getHex() {
+        char[] res = new char[2 * hash.length];
+        for (int i = 0; i < hash.length; i++) {
+            res[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+            res[2 * i + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(res);
+    }
+
+    @Override
+    public String toString() {
+        return getHex() + " " + file;
+    }
+}
@@ -0,0 +1,137 @@
+package ru.ifmo.rain.vaksman.walk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class WalkStream {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final WalkRecord END = new WalkRecord(null, null);
+
+    private WalkStream() {
+    }
+
+    public static Stream<WalkRecord> walk(Iterable<String> roots) {
+        return walk(roots, HashAlgorithm.FNV.name(), 1, DEFAULT_CAPACITY);
+    }
+
+    public static Stream<WalkRecord> walk(Iterable<String> roots, String algorithm, int threads, int capacity) {
+        if (roots == null || algorithm == null || threads <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("One of given arguments is incorrect");
+        }
+        FileHasher hasher = new FileHasher(
+                ReadStrategy.adaptive(new BufferPool(WalkOptions.DEFAULT_BUFFER_SIZE), WalkOptions.DEFAULT_MMAP_THRESHOLD),
+                HashAlgorithm.forName(algorithm),
+                null,
+                null,
+                WalkMetrics.DISABLED);
+        Producer producer = new Producer(RootSource.of(roots), hasher, threads, capacity);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(producer, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(producer::close);
+    }
+
+    private static class Producer implements Iterator<WalkRecord>, ResultSink, Runnable {
+        private final RootSource roots;
+        private final FileHasher hasher;
+        private final int threads;
+        private final BlockingQueue<WalkRecord> records;
+        private volatile IOException error;
+        private volatile RuntimeException failure;
+        private Thread thread;
+        private WalkRecord next;
+
+        private Producer(RootSource roots, FileHasher hasher, int threads, int capacity) {
+            this.roots = roots;
+            this.hasher = hasher;
+            this.threads = threads;
+            this.records = new ArrayBlockingQueue<>(capacity);
+        }
+
+        @Override
+        public void run() {
+            FileVisitor visitor = new FileVisitor(this, hasher);
+            try {
+                if (threads > 1) {
+                    try (ParallelWalk parallelWalk = new ParallelWalk(threads, hasher)) {
+                        parallelWalk.walk(roots, visitor);
+                    }
+                } else {
+                    String root;
+                    while (!Thread.currentThread().isInterrupted() && (root = roots.next()) != null) {
+                        visitor.walk(root);
+                    }
+                }
+            } catch (IOException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    records.put(END);
+                } catch (InterruptedException e) {
+                    records.offer(END);
+                }
+            }
+        }
+
+        @Override
+        public void accept(byte[] hash, String file) throws IOException {
+            try {
+                records.put(new WalkRecord(file, hash));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Walk was cancelled");
+            }
+        }
+
+        @Override
+        public synchronized boolean hasNext() {
+            if (thread == null) {
+                thread = new Thread(this, "walk-stream");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            if (next == null) {
+                try {
+                    next = records.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for walk results"));
+                }
+            }
+            if (next == END && error != null) {
+                throw new UncheckedIOException(error);
+            }
+            if (next == END && failure != null) {
+                throw failure;
+            }
+            return next != END;
+        }
+
+        @Override
+        public synchronized WalkRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            WalkRecord res = next;
+            next = null;
+            return res;
+        }
+
+        private synchronized void close() {
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,3 @@
+javac -encoding UTF-8 -d benchmark-out -sourcepath java;benchmark benchmark\ru\ifmo\rain\vaksman\walk\WalkBenchmark.java
+java -cp benchmark-out ru.ifmo.rain.vaksman.walk.WalkBenchmark %*
+rmdir benchmark-out /s /q